@@ -4,6 +4,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import may.baseraids.config.ConfigLoader;
+import may.baseraids.entities.ai.BlockToughnessTable;
 import may.baseraids.nexus.NexusBlock;
 import may.baseraids.nexus.NexusEffectsBlockEntity;
 import net.minecraft.core.BlockPos;
@@ -77,6 +78,7 @@ public class Baseraids {
 
 	public static final WorldManager worldManager = new WorldManager();
 	public static final MessageManager messageManager = new MessageManager();
+	public static final BlockToughnessTable blockToughnessTable = new BlockToughnessTable();
 
 	public Baseraids() {
 		setup();
@@ -92,6 +94,7 @@ public class Baseraids {
 		IEventBus bus = FMLJavaModLoadingContext.get().getModEventBus();
 		bus.addListener(worldManager::onCreativeModeTabBuildContents);
 		bus.addListener(worldManager::onFMLCommonSetup);
+		bus.addListener(blockToughnessTable::onConfigChanged);
 		registerDeferredRegistries(bus);
 
 		// Register ourselves for server and other game events we are interested in
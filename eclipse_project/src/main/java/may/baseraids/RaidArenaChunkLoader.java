@@ -0,0 +1,139 @@
+package may.baseraids;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+/**
+ * This class keeps the chunks of the raid arena loaded using chunk tickets.
+ * The tickets are placed during the countdown before a raid, so that the chunks
+ * are loaded asynchronously by the chunk system and the start of the raid and
+ * the first wave do not block on chunk loading.
+ *
+ * @author Natascha May
+ */
+public class RaidArenaChunkLoader {
+
+	private static final TicketType<ChunkPos> RAID_ARENA_TICKET = TicketType.create(Baseraids.MODID + "_raid_arena",
+			Comparator.comparingLong(ChunkPos::toLong));
+	/**
+	 * The distance of the tickets. A distance of 2 makes the chunk itself entity
+	 * ticking, so that the spawned mobs start moving right away.
+	 */
+	private static final int TICKET_DISTANCE = 2;
+
+	private final Level level;
+	private final int radiusMin;
+	private final int radiusMax;
+
+	/** The center of the currently placed tickets or null, if none are placed */
+	private BlockPos center = null;
+	private final LongArrayList ticketChunks = new LongArrayList();
+
+	public RaidArenaChunkLoader(Level level, int radiusMin, int radiusMax) {
+		this.level = level;
+		this.radiusMin = radiusMin;
+		this.radiusMax = radiusMax;
+	}
+
+	/**
+	 * Places tickets for all chunks that intersect the ring between
+	 * {@link #radiusMin} and {@link #radiusMax} around the given center. If
+	 * tickets were already placed around another center, they are released first.
+	 *
+	 * @param center the center of the raid arena, usually the nexus
+	 */
+	public void addTickets(BlockPos center) {
+		if (center.equals(this.center)) {
+			return;
+		}
+		releaseTickets();
+		this.center = center.immutable();
+
+		ServerChunkCache chunkSource = ((ServerLevel) level).getChunkSource();
+		ChunkPos centerChunk = new ChunkPos(center);
+		int chunkRadius = (radiusMax >> 4) + 1;
+		for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
+			for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
+				ChunkPos chunkPos = new ChunkPos(centerChunk.x + dx, centerChunk.z + dz);
+				if (!isChunkOnRing(chunkPos)) {
+					continue;
+				}
+				chunkSource.addRegionTicket(RAID_ARENA_TICKET, chunkPos, TICKET_DISTANCE, chunkPos);
+				ticketChunks.add(chunkPos.toLong());
+			}
+		}
+		Baseraids.LOGGER.debug("Added {} raid arena chunk tickets", ticketChunks.size());
+	}
+
+	/**
+	 * Releases all placed tickets, so that the chunks can be unloaded again.
+	 */
+	public void releaseTickets() {
+		if (center == null) {
+			return;
+		}
+		ServerChunkCache chunkSource = ((ServerLevel) level).getChunkSource();
+		for (int i = 0; i < ticketChunks.size(); i++) {
+			ChunkPos chunkPos = new ChunkPos(ticketChunks.getLong(i));
+			chunkSource.removeRegionTicket(RAID_ARENA_TICKET, chunkPos, TICKET_DISTANCE, chunkPos);
+		}
+		Baseraids.LOGGER.debug("Released {} raid arena chunk tickets", ticketChunks.size());
+		ticketChunks.clear();
+		center = null;
+	}
+
+	/**
+	 * Checks whether the given chunk intersects the ring around {@link #center}.
+	 *
+	 * @param chunkPos the chunk to check
+	 * @return true, if any part of the chunk lies on the ring
+	 */
+	private boolean isChunkOnRing(ChunkPos chunkPos) {
+		// closest and farthest point of the chunk to the center in each axis
+		double minDx = axisDistance(center.getX(), chunkPos.getMinBlockX(), chunkPos.getMaxBlockX(), false);
+		double minDz = axisDistance(center.getZ(), chunkPos.getMinBlockZ(), chunkPos.getMaxBlockZ(), false);
+		double maxDx = axisDistance(center.getX(), chunkPos.getMinBlockX(), chunkPos.getMaxBlockX(), true);
+		double maxDz = axisDistance(center.getZ(), chunkPos.getMinBlockZ(), chunkPos.getMaxBlockZ(), true);
+		double minDistSqr = minDx * minDx + minDz * minDz;
+		double maxDistSqr = maxDx * maxDx + maxDz * maxDz;
+		return minDistSqr <= (double) radiusMax * radiusMax && maxDistSqr >= (double) radiusMin * radiusMin;
+	}
+
+	private static double axisDistance(int center, int min, int max, boolean farthest) {
+		if (farthest) {
+			return Math.max(Math.abs(center - min), Math.abs(center - max));
+		}
+		if (center < min) {
+			return (double) min - center;
+		}
+		if (center > max) {
+			return (double) center - max;
+		}
+		return 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(center, level);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		RaidArenaChunkLoader other = (RaidArenaChunkLoader) obj;
+		return Objects.equals(center, other.center) && Objects.equals(level, other.level);
+	}
+}
@@ -0,0 +1,222 @@
+package may.baseraids;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import may.baseraids.config.ConfigOptions;
+import may.baseraids.entities.ai.RaidArrow;
+import may.baseraids.nexus.NexusBlock;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.ExperienceOrb;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.entity.living.LivingDeathEvent;
+import net.minecraftforge.event.entity.living.LivingDropsEvent;
+import net.minecraftforge.event.entity.living.LivingExperienceDropEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+/**
+ * This class keeps the number of entities in the raid arena low that are left
+ * behind by the fights of a raid. Item drops of raid mobs dying in the arena are
+ * merged and limited to {@link ConfigOptions#getMaxRaidArenaDrops()}. Their
+ * experience is collected and dropped as few orbs in regular intervals. Raid
+ * arrows stuck in the ground are removed by themselves, see
+ * {@link RaidArrow#tick()}, and the remaining ones are swept at the end of the
+ * raid.
+ *
+ * @author Natascha May
+ */
+public class RaidDebrisManager {
+
+	private Level level;
+	private RaidManager raidManager;
+
+	/** The horizontal distance to the nexus that is part of the arena */
+	private static final int ARENA_RADIUS = 64;
+	/** The size of the cells in which experience is collected */
+	private static final int XP_CELL_SHIFT = 3;
+
+	/** The item entities dropped in the arena during the raid */
+	private final List<ItemEntity> arenaDrops = new ArrayList<>();
+	/** The collected experience per cell */
+	private final Long2IntOpenHashMap pendingXp = new Long2IntOpenHashMap();
+	/** The position of the first death per cell, where the experience is dropped */
+	private final Long2LongOpenHashMap xpDropPositions = new Long2LongOpenHashMap();
+	private int ticksSinceXpFlush = 0;
+	/**
+	 * The raid mobs that died in this tick. They are no longer raiding when their
+	 * drops are dropped, see {@link #onRaidMobDeathRemember(LivingDeathEvent)}.
+	 */
+	private final ReferenceOpenHashSet<LivingEntity> deadRaidMobs = new ReferenceOpenHashSet<>();
+
+	public RaidDebrisManager(RaidManager raidManager, Level level) {
+		MinecraftForge.EVENT_BUS.register(this);
+		this.raidManager = raidManager;
+		this.level = level;
+	}
+
+	/**
+	 * Drops the collected experience, if the interval defined by
+	 * {@link ConfigOptions#getRaidXpMergeTicks()} passed.
+	 */
+	void tick() {
+		deadRaidMobs.clear();
+		ticksSinceXpFlush++;
+		if (ticksSinceXpFlush < ConfigOptions.getRaidXpMergeTicks()) {
+			return;
+		}
+		flushXp();
+	}
+
+	/**
+	 * Drops the collected experience, removes all raid arrows from the arena and
+	 * forgets the tracked drops.
+	 */
+	void sweep() {
+		deadRaidMobs.clear();
+		flushXp();
+		arenaDrops.clear();
+
+		BlockPos nexusPos = NexusBlock.getBlockPos();
+		AABB arena = new AABB(nexusPos).inflate(ARENA_RADIUS, level.getHeight(), ARENA_RADIUS);
+		for (RaidArrow arrow : level.getEntitiesOfClass(RaidArrow.class, arena)) {
+			arrow.discard();
+		}
+	}
+
+	private void flushXp() {
+		ticksSinceXpFlush = 0;
+		if (pendingXp.isEmpty()) {
+			return;
+		}
+		ObjectIterator<Long2IntMap.Entry> iterator = pendingXp.long2IntEntrySet().fastIterator();
+		while (iterator.hasNext()) {
+			Long2IntMap.Entry entry = iterator.next();
+			BlockPos dropPos = BlockPos.of(xpDropPositions.get(entry.getLongKey()));
+			ExperienceOrb.award((ServerLevel) level, Vec3.atCenterOf(dropPos), entry.getIntValue());
+		}
+		pendingXp.clear();
+		xpDropPositions.clear();
+	}
+
+	/**
+	 * Remembers a dying raid mob. This runs before
+	 * {@link RaidSpawningManager#onRaidMobDeath(LivingDeathEvent)} removes the mob
+	 * from the raid, so that its drops can still be told apart from the drops of
+	 * other entities, e.g. tamed animals or villagers.
+	 *
+	 * @param event the event of type {@link LivingDeathEvent} that triggers this
+	 *              function
+	 */
+	@SubscribeEvent(priority = EventPriority.HIGH)
+	public void onRaidMobDeathRemember(final LivingDeathEvent event) {
+		if (event.getEntity().level == level && raidManager.isEntityRaiding(event.getEntity())) {
+			deadRaidMobs.add(event.getEntity());
+		}
+	}
+
+	/**
+	 * Merges the drops of a raid mob dying in the arena into full stacks and removes
+	 * the drops that exceed the limit of drops in the arena.
+	 *
+	 * @param event the event of type {@link LivingDropsEvent} that triggers this
+	 *              function
+	 */
+	@SubscribeEvent
+	public void onLivingDrops(final LivingDropsEvent event) {
+		if (!isRaidDebris(event.getEntity())) {
+			return;
+		}
+
+		Collection<ItemEntity> drops = event.getDrops();
+		List<ItemEntity> mergedDrops = mergeDrops(drops);
+
+		arenaDrops.removeIf(Entity::isRemoved);
+		int remainingDrops = Math.max(0, ConfigOptions.getMaxRaidArenaDrops() - arenaDrops.size());
+		if (mergedDrops.size() > remainingDrops) {
+			mergedDrops = mergedDrops.subList(0, remainingDrops);
+		}
+
+		drops.clear();
+		drops.addAll(mergedDrops);
+		arenaDrops.addAll(mergedDrops);
+	}
+
+	/**
+	 * Merges the stacks of the given drops with the same item into as few stacks
+	 * as possible.
+	 *
+	 * @param drops the drops to merge
+	 * @return the remaining drops
+	 */
+	private static List<ItemEntity> mergeDrops(Collection<ItemEntity> drops) {
+		List<ItemEntity> mergedDrops = new ArrayList<>(drops.size());
+		for (ItemEntity drop : drops) {
+			ItemStack stack = drop.getItem();
+			for (int i = 0; i < mergedDrops.size() && !stack.isEmpty(); i++) {
+				ItemStack mergedStack = mergedDrops.get(i).getItem();
+				if (!ItemStack.isSameItemSameTags(mergedStack, stack)) {
+					continue;
+				}
+				int movedCount = Math.min(stack.getCount(), mergedStack.getMaxStackSize() - mergedStack.getCount());
+				mergedStack.grow(movedCount);
+				stack.shrink(movedCount);
+			}
+			if (!stack.isEmpty()) {
+				mergedDrops.add(drop);
+			}
+		}
+		return mergedDrops;
+	}
+
+	/**
+	 * Collects the experience of a raid mob dying in the arena instead of dropping it
+	 * right away.
+	 *
+	 * @param event the event of type {@link LivingExperienceDropEvent} that
+	 *              triggers this function
+	 */
+	@SubscribeEvent
+	public void onLivingExperienceDrop(final LivingExperienceDropEvent event) {
+		if (!isRaidDebris(event.getEntity()) || ConfigOptions.getRaidXpMergeTicks() == 0) {
+			return;
+		}
+
+		BlockPos pos = event.getEntity().blockPosition();
+		long cell = BlockPos.asLong(pos.getX() >> XP_CELL_SHIFT, pos.getY() >> XP_CELL_SHIFT,
+				pos.getZ() >> XP_CELL_SHIFT);
+		pendingXp.addTo(cell, event.getDroppedExperience());
+		xpDropPositions.putIfAbsent(cell, pos.asLong());
+		event.setDroppedExperience(0);
+	}
+
+	/**
+	 * Only the debris of raid mobs is handled. The drops of all other entities,
+	 * e.g. tamed animals or villagers, are never touched.
+	 *
+	 * @param entity the dying entity
+	 * @return true, if the entity is a raid mob that dies in the arena during a raid
+	 */
+	private boolean isRaidDebris(LivingEntity entity) {
+		if (entity.level != level || !raidManager.isRaidActive() || !deadRaidMobs.contains(entity)) {
+			return false;
+		}
+		BlockPos nexusPos = NexusBlock.getBlockPos();
+		return Math.abs(entity.getX() - nexusPos.getX()) <= ARENA_RADIUS
+				&& Math.abs(entity.getZ() - nexusPos.getZ()) <= ARENA_RADIUS;
+	}
+}
@@ -6,8 +6,17 @@ import org.jline.utils.Log;
 
 import may.baseraids.config.ConfigOptions;
 import may.baseraids.entities.RaidSpawnCountManager;
+import may.baseraids.entities.RaidWavePlan;
 import may.baseraids.entities.ai.GlobalBlockBreakProgressManager;
+import may.baseraids.entities.ai.NexusFlowField;
+import may.baseraids.entities.ai.RaidAILevelOfDetail;
+import may.baseraids.entities.ai.RaidPathCache;
+import may.baseraids.entities.ai.RaidRaycastCache;
+import may.baseraids.entities.ai.RaidSiegePlanner;
+import may.baseraids.entities.ai.RaidSquadManager;
+import may.baseraids.entities.ai.RaidTargetIndex;
 import may.baseraids.nexus.NexusBlock;
+import may.baseraids.nexus.NexusBlock.NexusState;
 import may.baseraids.nexus.NexusEffects;
 import may.baseraids.nexus.NexusEffectsBlockEntity;
 import net.minecraft.core.BlockPos;
@@ -41,14 +50,25 @@ public class RaidManager {
 	private Boolean isRaidActive;
 	private int curRaidLevel = -1;
 	private int curWave = 0;
+	/** The waves of the active raid, compiled at the start of the raid */
+	private RaidWavePlan wavePlan = RaidWavePlan.EMPTY;
 
 	public static final int MAX_RAID_LEVEL = 10;
 	public static final int MIN_RAID_LEVEL = 1;
 
 	private RaidSpawningManager raidSpawningMng;
 	private RaidTimeManager raidTimeMng;
+	private RaidDebrisManager raidDebrisMng;
 	public final GlobalBlockBreakProgressManager globalBlockBreakProgressMng;
 	public final RestoreDestroyedBlocksManager restoreDestroyedBlocksMng;
+	public final NexusFlowField nexusFlowField;
+	public final RaidPathCache raidPathCache;
+	public final RaidRaycastCache raycastCache = new RaidRaycastCache();
+	public final RaidSiegePlanner siegePlanner;
+	public final RaidAILevelOfDetail aiLevelOfDetail = new RaidAILevelOfDetail();
+	public final RaidSquadManager raidSquadMng = new RaidSquadManager();
+	public final RaidTargetIndex targetIndex = new RaidTargetIndex(raycastCache);
+	public final RaidSoundMixer soundMixer;
 
 	private static final ResourceLocation[] REWARD_CHEST_LOOTTABLES = { new ResourceLocation(Baseraids.MODID, "level1"),
 			new ResourceLocation(Baseraids.MODID, "level2"), new ResourceLocation(Baseraids.MODID, "level3"),
@@ -63,8 +83,13 @@ public class RaidManager {
 		this.worldManager = worldManager;
 		raidSpawningMng = new RaidSpawningManager(this, level, worldManager);
 		raidTimeMng = new RaidTimeManager(this, level);
+		raidDebrisMng = new RaidDebrisManager(this, level);
+		soundMixer = new RaidSoundMixer(level);
 		globalBlockBreakProgressMng = new GlobalBlockBreakProgressManager(this, level);
 		restoreDestroyedBlocksMng = new RestoreDestroyedBlocksManager(this, level);
+		nexusFlowField = new NexusFlowField(level);
+		raidPathCache = new RaidPathCache(nexusFlowField);
+		siegePlanner = new RaidSiegePlanner(level, nexusFlowField);
 		setDefaultWriteParametersIfNotSet();
 		Baseraids.LOGGER.info("RaidManager created");
 		isInitialized = true;
@@ -109,12 +134,24 @@ public class RaidManager {
 		}
 		
 		if(raidTimeMng.shouldSpawnWave()) {
-			spawnRaidMobsForCurWave();
+			queueRaidMobsForCurWave();
 		}
+		if(raidSpawningMng.spawnQueuedMobs()) {
+			Baseraids.messageManager.sendStatusMessage(Component.translatable("baseraids.subtitle.spawn_wave", getCurWave(), wavePlan.getMaxWave()), false);
+		}
+		
+		if (!nexusFlowField.isBuiltFor(NexusBlock.getBlockPos())) {
+			// the field is not saved, so it needs to be rebuilt after loading a running raid
+			nexusFlowField.build(NexusBlock.getBlockPos());
+			siegePlanner.requestReplan();
+		}
+		nexusFlowField.tick();
+		siegePlanner.tick();
+		raidDebrisMng.tick();
 		
 		raidTimeMng.incrementActiveRaidTicks();
 		
-		if (raidSpawningMng.areAllSpawnedMobsDead() && this.getCurWave() >= RaidSpawnCountManager.getMaxWave()) {
+		if (raidSpawningMng.isSpawnQueueEmpty() && raidSpawningMng.areAllSpawnedMobsDead() && this.getCurWave() >= wavePlan.getMaxWave()) {
 			Baseraids.LOGGER.info("Raid ended: all mobs are dead");
 			winRaid();
 			return;
@@ -125,11 +162,15 @@ public class RaidManager {
 		}
 	}
 	
-	private void spawnRaidMobsForCurWave() {
+	/**
+	 * Advances to the next wave and queues its mobs. The mobs are spawned over
+	 * the next ticks and the players are notified once the whole wave was spawned.
+	 */
+	private void queueRaidMobsForCurWave() {
 		setCurWave(getCurWave()+1);
-		if(raidSpawningMng.spawnRaidMobsForWave(getCurWave())) {
-			Baseraids.messageManager.sendStatusMessage(Component.translatable("baseraids.subtitle.spawn_wave", getCurWave(), RaidSpawnCountManager.getMaxWave()), false);
-		}
+		raidSpawningMng.queueRaidMobsForWave(wavePlan, getCurWave());
+		siegePlanner.requestReplan();
+		raidTimeMng.markWaveSpawned();
 	}
 
 	/**
@@ -149,7 +190,24 @@ public class RaidManager {
 		setCurWave(0);
 		
 		int playerCount = level.players().size();
-		RaidSpawnCountManager.registerSpawnCountsForLevelAndPlayerCount(getRaidLevel(), playerCount);
+		wavePlan = RaidSpawnCountManager.createWavePlanForLevelAndPlayerCount(getRaidLevel(), playerCount);
+		// in case the raid was started without a countdown, e.g. by a command
+		raidSpawningMng.prewarmSpawnRingChunks();
+		raidSpawningMng.buildSpawnRing();
+		nexusFlowField.build(NexusBlock.getBlockPos());
+	}
+
+	/**
+	 * Starts loading the chunks of the raid arena before the raid starts. If the
+	 * nexus is not placed, the raid cannot start and the chunks are released
+	 * instead.
+	 */
+	void prewarmRaidArena() {
+		if (NexusBlock.getState() != NexusState.BLOCK) {
+			raidSpawningMng.releaseSpawnRingChunks();
+			return;
+		}
+		raidSpawningMng.prewarmSpawnRingChunks();
 	}
 
 	/**
@@ -220,6 +278,15 @@ public class RaidManager {
 		level.destroyBlockProgress(-1, NexusBlock.getBlockPos(), -1);
 		globalBlockBreakProgressMng.resetAllProgress();
 		raidSpawningMng.killAllMobs();
+		raidDebrisMng.sweep();
+		raidSpawningMng.clearSpawnRing();
+		raidSpawningMng.releaseSpawnRingChunks();
+		nexusFlowField.clear();
+		raidPathCache.clear();
+		siegePlanner.clear();
+		aiLevelOfDetail.clear();
+		raidSquadMng.clear();
+		targetIndex.clear();
 		if (ConfigOptions.getRestoreDestroyedBlocks()) {
 			restoreDestroyedBlocksMng.restoreSavedBlocks();
 		}
@@ -314,7 +381,7 @@ public class RaidManager {
 			restoreDestroyedBlocksMng.read(restoreDestroyedBlocksMngNBT);
 
 			int playerCount = level.players().size();
-			RaidSpawnCountManager.registerSpawnCountsForLevelAndPlayerCount(getRaidLevel(), playerCount);
+			wavePlan = RaidSpawnCountManager.createWavePlanForLevelAndPlayerCount(getRaidLevel(), playerCount);
 			
 			Baseraids.LOGGER.debug("Finished loading RaidManager");
 
@@ -366,10 +433,29 @@ public class RaidManager {
 		return raidSpawningMng.isEntityRaiding(entity);
 	}
 
+	/**
+	 * @return the number of alive mobs of the active raid
+	 */
+	public int getAliveRaidMobCount() {
+		return raidSpawningMng.getAliveMobCount();
+	}
+
+	/**
+	 * @return true, if all spawned mobs are dead and no mobs are waiting to be
+	 *         spawned
+	 */
+	boolean isRaidFieldClear() {
+		return raidSpawningMng.isSpawnQueueEmpty() && raidSpawningMng.getAliveMobCount() == 0;
+	}
+
 	public RaidTimeManager getRaidTimeManager() {
 		return raidTimeMng;
 	}
 
+	public RaidWavePlan getWavePlan() {
+		return wavePlan;
+	}
+
 	public int getCurWave() {
 		return curWave;
 	}
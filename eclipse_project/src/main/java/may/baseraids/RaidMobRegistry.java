@@ -0,0 +1,160 @@
+package may.baseraids;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Mob;
+
+/**
+ * This class is the single source of truth for which mobs belong to the active
+ * raid. Mobs are keyed by their entity id, so that adding, removing and checking
+ * the membership of a mob take constant time.
+ * <p>
+ * Mobs that were saved with the raid are only known by their UUID until they
+ * are loaded into the world again. These are kept as pending mobs until they are
+ * claimed using {@link #claimPending(Mob)}.
+ *
+ * @author Natascha May
+ */
+public class RaidMobRegistry {
+
+	private final Int2ObjectOpenHashMap<Mob> mobsById = new Int2ObjectOpenHashMap<>();
+	/** The UUIDs of raid mobs that are not loaded into the world right now */
+	private final Set<UUID> pendingUUIDs = new HashSet<>();
+
+	/**
+	 * Registers the given mob as a member of the raid.
+	 *
+	 * @param mob the mob to register
+	 */
+	public void add(Mob mob) {
+		mobsById.put(mob.getId(), mob);
+	}
+
+	/**
+	 * Removes the given entity from the raid.
+	 *
+	 * @param entity the entity to remove
+	 * @return true, if the entity was a member of the raid
+	 */
+	public boolean remove(Entity entity) {
+		if (!contains(entity)) {
+			return false;
+		}
+		mobsById.remove(entity.getId());
+		return true;
+	}
+
+	/**
+	 * @param entity the entity to check, may be null
+	 * @return true, if the given entity is a loaded member of the raid
+	 */
+	public boolean contains(Entity entity) {
+		return entity != null && mobsById.get(entity.getId()) == entity;
+	}
+
+	/**
+	 * @return the loaded members of the raid
+	 */
+	public Collection<Mob> getMobs() {
+		return mobsById.values();
+	}
+
+	/**
+	 * @return the number of loaded members of the raid
+	 */
+	public int size() {
+		return mobsById.size();
+	}
+
+	/**
+	 * @return the number of members of the raid that are alive, including those
+	 *         that are not loaded
+	 */
+	public int getAliveCount() {
+		return mobsById.size() + pendingUUIDs.size();
+	}
+
+	/**
+	 * @return true, if the raid has neither loaded nor pending members
+	 */
+	public boolean isEmpty() {
+		return mobsById.isEmpty() && pendingUUIDs.isEmpty();
+	}
+
+	/**
+	 * Registers the UUID of a raid mob that will be claimed once it is loaded
+	 * into the world.
+	 *
+	 * @param uuid the UUID of the mob
+	 */
+	public void addPending(UUID uuid) {
+		pendingUUIDs.add(uuid);
+	}
+
+	/**
+	 * Registers the given mob, if its UUID was pending.
+	 *
+	 * @param mob the mob that was loaded into the world
+	 * @return true, if the mob was pending and is now a loaded member of the raid
+	 */
+	public boolean claimPending(Mob mob) {
+		if (pendingUUIDs.isEmpty() || !pendingUUIDs.remove(mob.getUUID())) {
+			return false;
+		}
+		add(mob);
+		return true;
+	}
+
+	/**
+	 * Moves a loaded member back to the pending members, e.g. when its chunk is
+	 * unloaded.
+	 *
+	 * @param mob the mob that is no longer loaded
+	 * @return true, if the mob was a loaded member of the raid
+	 */
+	public boolean moveToPending(Mob mob) {
+		if (!remove(mob)) {
+			return false;
+		}
+		pendingUUIDs.add(mob.getUUID());
+		return true;
+	}
+
+	/**
+	 * @return the UUIDs of the raid mobs that are not loaded right now
+	 */
+	public Set<UUID> getPendingUUIDs() {
+		return pendingUUIDs;
+	}
+
+	/**
+	 * Removes all loaded and pending members.
+	 */
+	public void clear() {
+		mobsById.clear();
+		pendingUUIDs.clear();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(mobsById, pendingUUIDs);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		RaidMobRegistry other = (RaidMobRegistry) obj;
+		return Objects.equals(mobsById, other.mobsById) && Objects.equals(pendingUUIDs, other.pendingUUIDs);
+	}
+}
@@ -0,0 +1,172 @@
+package may.baseraids;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import may.baseraids.config.ConfigOptions;
+import net.minecraft.core.BlockPos;
+import net.minecraft.sounds.SoundEvent;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+
+/**
+ * This class mixes the sounds played by the raid, e.g. blocks being hit by many
+ * mobs at once. Sounds are collected during a tick and played at the end of the
+ * tick. The same sound played several times in the same area is merged into one
+ * voice at the average position, which is louder the more sounds were merged.
+ * Each area plays at most {@link ConfigOptions#getMaxRaidSoundVoicesPerArea()}
+ * different sounds and the raid plays at most
+ * {@link ConfigOptions#getMaxRaidSoundVoicesPerTick()} voices per tick, the
+ * loudest and most merged voices first. Further sounds are dropped.
+ *
+ * @author Natascha May
+ */
+public class RaidSoundMixer {
+
+	private Level level;
+
+	/** The size of the areas is {@code 1 << AREA_SHIFT} blocks */
+	private static final int AREA_SHIFT = 3;
+	/** The volume increase per merged sound */
+	private static final float VOLUME_PER_MERGED_SOUND = 0.1F;
+	/** The maximum factor by which merging sounds increases the volume */
+	private static final float MAX_VOLUME_BOOST = 2.0F;
+
+	/** Orders the voices by their volume and then by the number of merged sounds, both descending */
+	private static final Comparator<Voice> VOICE_PRIORITY = Comparator.comparingDouble(Voice::getVolume)
+			.thenComparingInt(voice -> voice.count).reversed();
+
+	/** The voices of the current tick per area */
+	private final Long2ObjectOpenHashMap<List<Voice>> voicesByArea = new Long2ObjectOpenHashMap<>();
+	/** Reused by {@link #onLevelTickPlayVoices(TickEvent.LevelTickEvent)} to order the voices */
+	private final List<Voice> voicesToPlay = new ArrayList<>();
+
+	public RaidSoundMixer(Level level) {
+		MinecraftForge.EVENT_BUS.register(this);
+		this.level = level;
+	}
+
+	/**
+	 * Plays the sound at the given block at the end of the tick.
+	 *
+	 * @see #play(double, double, double, SoundEvent, SoundSource, float, float)
+	 */
+	public void play(BlockPos pos, SoundEvent sound, SoundSource source, float volume, float pitch) {
+		play(pos.getX() + 0.5D, pos.getY() + 0.5D, pos.getZ() + 0.5D, sound, source, volume, pitch);
+	}
+
+	/**
+	 * Plays the sound at the given position at the end of the tick, like
+	 * {@link Level#playSound(net.minecraft.world.entity.player.Player, double, double, double, SoundEvent, SoundSource, float, float)}.
+	 * If the same sound is played in the same area during this tick, both are
+	 * merged.
+	 *
+	 * @param x      the x-coordinate of the sound
+	 * @param y      the y-coordinate of the sound
+	 * @param z      the z-coordinate of the sound
+	 * @param sound  the sound to play
+	 * @param source the category of the sound
+	 * @param volume the volume of the sound
+	 * @param pitch  the pitch of the sound
+	 */
+	public void play(double x, double y, double z, SoundEvent sound, SoundSource source, float volume, float pitch) {
+		long area = BlockPos.asLong(Mth.floor(x) >> AREA_SHIFT, Mth.floor(y) >> AREA_SHIFT,
+				Mth.floor(z) >> AREA_SHIFT);
+		List<Voice> voices = voicesByArea.get(area);
+		if (voices == null) {
+			voices = new ArrayList<>(2);
+			voicesByArea.put(area, voices);
+		}
+
+		for (int i = 0; i < voices.size(); i++) {
+			Voice voice = voices.get(i);
+			if (voice.sound == sound && voice.source == source) {
+				voice.merge(x, y, z, volume);
+				return;
+			}
+		}
+		if (voices.size() < ConfigOptions.getMaxRaidSoundVoicesPerArea()) {
+			voices.add(new Voice(x, y, z, sound, source, volume, pitch));
+		}
+	}
+
+	/**
+	 * Plays the voices collected during this tick. If there are more voices than
+	 * may be played per tick, the loudest and most merged voices are played.
+	 *
+	 * @param event the event of type {@link TickEvent.LevelTickEvent} that
+	 *              triggers this method
+	 */
+	@SubscribeEvent
+	public void onLevelTickPlayVoices(final TickEvent.LevelTickEvent event) {
+		if (event.phase != TickEvent.Phase.END || event.side != LogicalSide.SERVER || event.level != level
+				|| voicesByArea.isEmpty()) {
+			return;
+		}
+
+		ObjectIterator<List<Voice>> iterator = voicesByArea.values().iterator();
+		while (iterator.hasNext()) {
+			voicesToPlay.addAll(iterator.next());
+		}
+		int maxVoices = ConfigOptions.getMaxRaidSoundVoicesPerTick();
+		if (voicesToPlay.size() > maxVoices) {
+			voicesToPlay.sort(VOICE_PRIORITY);
+		}
+		for (int i = 0; i < voicesToPlay.size() && i < maxVoices; i++) {
+			voicesToPlay.get(i).play(level);
+		}
+		voicesToPlay.clear();
+		voicesByArea.clear();
+	}
+
+	/**
+	 * One sound in one area, merged from all plays of this sound in this area.
+	 */
+	private static class Voice {
+		private final SoundEvent sound;
+		private final SoundSource source;
+		private final float pitch;
+		private double sumX;
+		private double sumY;
+		private double sumZ;
+		private float maxVolume;
+		private int count = 1;
+
+		private Voice(double x, double y, double z, SoundEvent sound, SoundSource source, float volume, float pitch) {
+			this.sound = sound;
+			this.source = source;
+			this.pitch = pitch;
+			this.sumX = x;
+			this.sumY = y;
+			this.sumZ = z;
+			this.maxVolume = volume;
+		}
+
+		private void merge(double x, double y, double z, float volume) {
+			sumX += x;
+			sumY += y;
+			sumZ += z;
+			maxVolume = Math.max(maxVolume, volume);
+			count++;
+		}
+
+		/**
+		 * @return the volume of the voice, which is louder the more sounds were merged
+		 */
+		private float getVolume() {
+			return maxVolume * Math.min(MAX_VOLUME_BOOST, 1.0F + VOLUME_PER_MERGED_SOUND * (count - 1));
+		}
+
+		private void play(Level level) {
+			level.playSound(null, sumX / count, sumY / count, sumZ / count, sound, source, getVolume(), pitch);
+		}
+	}
+}
@@ -0,0 +1,357 @@
+package may.baseraids;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.MobSpawnType;
+import net.minecraft.world.entity.SpawnPlacements;
+import net.minecraft.world.entity.SpawnPlacements.Type;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+/**
+ * This class holds pre-validated spawn positions on the ring around the nexus.
+ * The ring is built once per raid and the positions are bucketed by
+ * {@link SpawnPlacements.Type}, so that drawing a spawn position is a single
+ * random array access instead of repeated heightmap lookups and spawn rule
+ * checks.
+ * <p>
+ * When a block inside the ring is broken or placed, the affected column is
+ * marked dirty and revalidated the next time it is drawn.
+ * <p>
+ * Building the ring never loads chunks. Columns in chunks that are not loaded
+ * and columns that are not valid are kept as pending. They are retried, when
+ * their chunk is loaded or a block in them changes, at most
+ * {@link #MAX_RETRIES_PER_DRAW} at a time when a position is drawn.
+ *
+ * @author Natascha May
+ */
+public class RaidSpawnRingCache {
+
+	/** The maximum number of pending columns that are retried per draw */
+	private static final int MAX_RETRIES_PER_DRAW = 16;
+
+	private final Level level;
+	private final int angleSteps;
+	private final int radiusMin;
+	private final int radiusMax;
+
+	/** The position around which the ring was built or null, if it was not built */
+	private BlockPos center = null;
+	private final Map<Type, SpawnColumnBucket> buckets = new EnumMap<>(Type.class);
+
+	private RandomSource rand = RandomSource.create();
+
+	public RaidSpawnRingCache(Level level, int angleSteps, int radiusMin, int radiusMax) {
+		this.level = level;
+		this.angleSteps = angleSteps;
+		this.radiusMin = radiusMin;
+		this.radiusMax = radiusMax;
+		MinecraftForge.EVENT_BUS.register(this);
+	}
+
+	/**
+	 * Builds the ring around the given center for all given entity types. Every
+	 * combination of angle step and radius is one column, which keeps the
+	 * distribution of the spawn positions the same as choosing a random angle and
+	 * radius.
+	 *
+	 * @param center      the center of the ring, usually the nexus
+	 * @param entityTypes the entity types that will be spawned from this ring
+	 */
+	public void build(BlockPos center, Iterable<EntityType<? extends Mob>> entityTypes) {
+		clear();
+		this.center = center.immutable();
+
+		for (EntityType<? extends Mob> type : entityTypes) {
+			buckets.computeIfAbsent(SpawnPlacements.getPlacementType(type), t -> new SpawnColumnBucket(type));
+		}
+
+		double angleInterval = 2 * Math.PI / angleSteps;
+		for (int angleIndex = 0; angleIndex < angleSteps; angleIndex++) {
+			double angle = angleIndex * angleInterval;
+			for (int radius = radiusMin; radius < radiusMax; radius++) {
+				int x = center.getX() + (int) (radius * Math.cos(angle));
+				int z = center.getZ() + (int) (radius * Math.sin(angle));
+				long columnKey = ChunkPos.asLong(x, z);
+				if (!level.hasChunk(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z))) {
+					// do not load the chunk here, the column is retried when the chunk is loaded
+					buckets.values().forEach(bucket -> bucket.pendingColumns.add(columnKey));
+					continue;
+				}
+				int surfaceHeight = level.getHeight(Heightmap.Types.WORLD_SURFACE, x, z);
+				buckets.forEach((placementType, bucket) -> {
+					if (isValidSpawnColumn(placementType, bucket.representativeType, x, surfaceHeight, z)) {
+						bucket.positions.add(BlockPos.asLong(x, surfaceHeight, z));
+					} else {
+						bucket.pendingColumns.add(columnKey);
+					}
+				});
+			}
+		}
+
+		if (Baseraids.LOGGER.isDebugEnabled()) {
+			buckets.forEach((placementType, bucket) -> Baseraids.LOGGER.debug(
+					"Built spawn ring with {} columns and {} pending columns for {}", bucket.positions.size(),
+					bucket.pendingColumns.size(), placementType));
+		}
+	}
+
+	/**
+	 * Clears the ring. Until it is built again, no positions can be drawn.
+	 */
+	public void clear() {
+		center = null;
+		buckets.clear();
+	}
+
+	/**
+	 * @param center the position to compare to
+	 * @return true, if the ring was built around the given position
+	 */
+	public boolean isBuiltFor(BlockPos center) {
+		return center.equals(this.center);
+	}
+
+	/**
+	 * Draws a random pre-validated spawn position for the given entity type.
+	 * Dirty columns are revalidated when they are drawn and removed from the ring,
+	 * if they are no longer valid.
+	 *
+	 * @param entityType the entity type that will be spawned
+	 * @return a valid spawn position or null, if the ring holds no valid position
+	 *         for this entity type
+	 */
+	@Nullable
+	public BlockPos drawSpawnPos(EntityType<? extends Mob> entityType) {
+		Type placementType = SpawnPlacements.getPlacementType(entityType);
+		SpawnColumnBucket bucket = buckets.get(placementType);
+		if (bucket == null) {
+			return null;
+		}
+		if (!bucket.retryColumns.isEmpty()) {
+			retryPendingColumns(bucket, placementType);
+		}
+
+		while (!bucket.positions.isEmpty()) {
+			int index = rand.nextInt(bucket.positions.size());
+			long pos = bucket.positions.getLong(index);
+			if (!bucket.dirtyColumns.isEmpty()
+					&& bucket.dirtyColumns.remove(ChunkPos.asLong(BlockPos.getX(pos), BlockPos.getZ(pos)))) {
+				pos = revalidateColumn(bucket, index, placementType);
+				if (pos == Long.MAX_VALUE) {
+					continue;
+				}
+			}
+			return toSpawnPos(placementType, pos);
+		}
+		return null;
+	}
+
+	/**
+	 * Validates up to {@link #MAX_RETRIES_PER_DRAW} of the pending columns that
+	 * are marked to be retried. Columns that became valid can be drawn again.
+	 * Columns whose chunk is not loaded stay pending until it is loaded.
+	 */
+	private void retryPendingColumns(SpawnColumnBucket bucket, Type placementType) {
+		LongIterator iterator = bucket.retryColumns.iterator();
+		for (int retries = 0; retries < MAX_RETRIES_PER_DRAW && iterator.hasNext(); retries++) {
+			long columnKey = iterator.nextLong();
+			iterator.remove();
+			int x = ChunkPos.getX(columnKey);
+			int z = ChunkPos.getZ(columnKey);
+			if (!level.hasChunk(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z))) {
+				continue;
+			}
+			int surfaceHeight = level.getHeight(Heightmap.Types.WORLD_SURFACE, x, z);
+			if (isValidSpawnColumn(placementType, bucket.representativeType, x, surfaceHeight, z)) {
+				bucket.pendingColumns.remove(columnKey);
+				bucket.positions.add(BlockPos.asLong(x, surfaceHeight, z));
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the surface height of the column at the given index and checks
+	 * whether it is still valid. Invalid columns are moved to the pending columns
+	 * of the bucket.
+	 *
+	 * @return the new packed position or {@link Long#MAX_VALUE}, if the column
+	 *         was removed
+	 */
+	private long revalidateColumn(SpawnColumnBucket bucket, int index, Type placementType) {
+		long pos = bucket.positions.getLong(index);
+		int x = BlockPos.getX(pos);
+		int z = BlockPos.getZ(pos);
+		boolean isLoaded = level.hasChunk(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z));
+		int surfaceHeight = isLoaded ? level.getHeight(Heightmap.Types.WORLD_SURFACE, x, z) : 0;
+		if (!isLoaded || !isValidSpawnColumn(placementType, bucket.representativeType, x, surfaceHeight, z)) {
+			// swap with the last element to remove in constant time
+			int last = bucket.positions.size() - 1;
+			bucket.positions.set(index, bucket.positions.getLong(last));
+			bucket.positions.removeLong(last);
+			bucket.pendingColumns.add(ChunkPos.asLong(x, z));
+			return Long.MAX_VALUE;
+		}
+		long newPos = BlockPos.asLong(x, surfaceHeight, z);
+		bucket.positions.set(index, newPos);
+		return newPos;
+	}
+
+	/**
+	 * Converts a packed surface position into the actual spawn position. Entities
+	 * that do not spawn on the ground are spawned in the air above the surface.
+	 */
+	private BlockPos toSpawnPos(Type placementType, long surfacePos) {
+		int y = BlockPos.getY(surfacePos);
+		if (!placementType.equals(Type.ON_GROUND)) {
+			y += 20 + rand.nextInt(15);
+		}
+		return new BlockPos(BlockPos.getX(surfacePos), y, BlockPos.getZ(surfacePos));
+	}
+
+	private boolean isValidSpawnColumn(Type placementType, EntityType<? extends Mob> representativeType, int x,
+			int surfaceHeight, int z) {
+		if (!placementType.equals(Type.ON_GROUND)) {
+			return true;
+		}
+		return Mob.checkMobSpawnRules(representativeType, level, MobSpawnType.MOB_SUMMONED,
+				new BlockPos(x, surfaceHeight, z), rand);
+	}
+
+	/**
+	 * Marks the column of the given position as dirty, if it lies on the ring.
+	 * Pending columns are marked to be retried instead.
+	 *
+	 * @param pos the position of the changed block
+	 */
+	private void markColumnDirtyIfOnRing(BlockPos pos) {
+		if (center == null) {
+			return;
+		}
+		double dx = (double) pos.getX() - center.getX();
+		double dz = (double) pos.getZ() - center.getZ();
+		double distSqr = dx * dx + dz * dz;
+		if (distSqr < (radiusMin - 1) * (radiusMin - 1) || distSqr > (radiusMax + 1) * (radiusMax + 1)) {
+			return;
+		}
+		long columnKey = ChunkPos.asLong(pos.getX(), pos.getZ());
+		for (SpawnColumnBucket bucket : buckets.values()) {
+			if (bucket.pendingColumns.contains(columnKey)) {
+				bucket.retryColumns.add(columnKey);
+			} else {
+				bucket.dirtyColumns.add(columnKey);
+			}
+		}
+	}
+
+	/**
+	 * Marks the pending columns in a loaded chunk to be retried.
+	 *
+	 * @param event the event of type {@link ChunkEvent.Load} that triggers this
+	 *              method
+	 */
+	@SubscribeEvent
+	public void onChunkLoadRetryPendingColumns(final ChunkEvent.Load event) {
+		if (center == null || event.getLevel() == null || event.getLevel().isClientSide()
+				|| !event.getLevel().equals(level)) {
+			return;
+		}
+		ChunkPos chunkPos = event.getChunk().getPos();
+		int chunkRadius = SectionPos.blockToSectionCoord(radiusMax) + 1;
+		if (Math.abs(chunkPos.x - SectionPos.blockToSectionCoord(center.getX())) > chunkRadius
+				|| Math.abs(chunkPos.z - SectionPos.blockToSectionCoord(center.getZ())) > chunkRadius) {
+			return;
+		}
+		for (SpawnColumnBucket bucket : buckets.values()) {
+			LongIterator iterator = bucket.pendingColumns.iterator();
+			while (iterator.hasNext()) {
+				long columnKey = iterator.nextLong();
+				if (SectionPos.blockToSectionCoord(ChunkPos.getX(columnKey)) == chunkPos.x
+						&& SectionPos.blockToSectionCoord(ChunkPos.getZ(columnKey)) == chunkPos.z) {
+					bucket.retryColumns.add(columnKey);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Marks the column of a broken block as dirty.
+	 *
+	 * @param event the event of type {@link BlockEvent.BreakEvent} that triggers
+	 *              this method
+	 */
+	@SubscribeEvent
+	public void onBlockBreakMarkColumnDirty(final BlockEvent.BreakEvent event) {
+		if (event.getLevel().isClientSide() || !event.getLevel().equals(level)) {
+			return;
+		}
+		markColumnDirtyIfOnRing(event.getPos());
+	}
+
+	/**
+	 * Marks the column of a placed block as dirty.
+	 *
+	 * @param event the event of type {@link BlockEvent.EntityPlaceEvent} that
+	 *              triggers this method
+	 */
+	@SubscribeEvent
+	public void onBlockPlaceMarkColumnDirty(final BlockEvent.EntityPlaceEvent event) {
+		if (event.getLevel().isClientSide() || !event.getLevel().equals(level)) {
+			return;
+		}
+		markColumnDirtyIfOnRing(event.getPos());
+	}
+
+	/**
+	 * Holds the packed spawn positions for one {@link SpawnPlacements.Type}.
+	 */
+	private static class SpawnColumnBucket {
+		/** The entity type that is used to check the spawn rules for this bucket */
+		private final EntityType<? extends Mob> representativeType;
+		private final LongArrayList positions = new LongArrayList();
+		/** The xz-keys of the columns that changed since they were validated */
+		private final LongOpenHashSet dirtyColumns = new LongOpenHashSet();
+		/** The xz-keys of the columns that are not loaded or not valid */
+		private final LongOpenHashSet pendingColumns = new LongOpenHashSet();
+		/** The xz-keys of the pending columns that may have become valid */
+		private final LongOpenHashSet retryColumns = new LongOpenHashSet();
+
+		private SpawnColumnBucket(EntityType<? extends Mob> representativeType) {
+			this.representativeType = representativeType;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(center, level);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		RaidSpawnRingCache other = (RaidSpawnRingCache) obj;
+		return Objects.equals(center, other.center) && Objects.equals(level, other.level);
+	}
+}
@@ -1,13 +1,19 @@
 package may.baseraids;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
+import java.util.Queue;
 import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import may.baseraids.config.ConfigOptions;
+import may.baseraids.entities.RaidEliteManager;
 import may.baseraids.entities.RaidSpawnCountManager;
+import may.baseraids.entities.RaidWavePlan;
 import may.baseraids.nexus.NexusBlock;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Vec3i;
@@ -21,7 +27,6 @@ import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.MobSpawnType;
-import net.minecraft.world.entity.SpawnGroupData;
 import net.minecraft.world.entity.SpawnPlacements;
 import net.minecraft.world.entity.SpawnPlacements.Type;
 import net.minecraft.world.level.Level;
@@ -29,6 +34,8 @@ import net.minecraft.world.level.ServerLevelAccessor;
 import net.minecraft.world.level.levelgen.Heightmap;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.entity.EntityJoinLevelEvent;
+import net.minecraftforge.event.entity.EntityLeaveLevelEvent;
+import net.minecraftforge.event.entity.living.LivingDeathEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 
 /**
@@ -42,13 +49,22 @@ public class RaidSpawningManager {
 	private Level level;
 	private RaidManager raidManager;
 	private WorldManager worldManager;
-	/** A list of all spawned mobs for managing active raids */
-	private List<Mob> spawnedMobs = new ArrayList<>();
+	/** All spawned mobs of the active raid, including those that are not loaded */
+	private final RaidMobRegistry spawnedMobs = new RaidMobRegistry();
 	/**
-	 * A list of UUIDs for all spawned mobs. Only used and updated when saving and
-	 * loading.
+	 * Whether any mobs were spawned during the active raid. Before that, the raid
+	 * cannot be won by killing all mobs.
 	 */
-	private List<UUID> spawnedMobsUUIDs = new ArrayList<>();
+	private boolean hasSpawnedMobs = false;
+	/** The mobs that are waiting to be spawned, in the order they will be spawned */
+	private Queue<QueuedRaidMob> spawnQueue = new ArrayDeque<>();
+	/**
+	 * The mobs that did not fit below {@link ConfigOptions#getMaxRaidMobs()} yet,
+	 * one entry per entity type whose weight is the number of mobs
+	 */
+	private final List<QueuedRaidMob> deferredMobs = new ArrayList<>();
+	/** The number of mobs spawned from the queue since it was last empty */
+	private int spawnCountSinceQueueEmpty = 0;
 
 	// spawning parameters
 	private static final int SPAWN_ANGLE_STEPS = 100;
@@ -58,90 +74,288 @@ public class RaidSpawningManager {
 	private static final int MAX_SPAWN_TRIES = 5;
 
 	private RandomSource rand = RandomSource.create();
+	private final RaidSpawnRingCache spawnRing;
+	private final RaidArenaChunkLoader arenaChunkLoader;
 
 	public RaidSpawningManager(RaidManager raidManager, Level world, WorldManager worldManager) {
 		this.raidManager = raidManager;
 		this.level = world;
 		this.worldManager = worldManager;
+		this.spawnRing = new RaidSpawnRingCache(world, SPAWN_ANGLE_STEPS, SPAWN_RADIUS_MIN, SPAWN_RADIUS_MAX);
+		this.arenaChunkLoader = new RaidArenaChunkLoader(world, SPAWN_RADIUS_MIN, SPAWN_RADIUS_MAX);
 		MinecraftForge.EVENT_BUS.register(this);
 		RaidSpawnCountManager.registerSpawnCounts();
 	}
 
 	/**
-	 * Spawns the mobs for the current level specified in the
-	 * {@link RaidSpawnCountManager} and saves the spawned entities into the
-	 * list {@link #spawnedMobs}.
-	 * @return true, if any mobs were spawned for this wave
+	 * Builds the {@link RaidSpawnRingCache} around the current nexus position, so
+	 * that the spawn positions of the raid do not have to be searched for each
+	 * spawned mob.
 	 */
-	boolean spawnRaidMobsForWave(int wave) {
-		Set<EntityType<? extends Mob>> entityTypesToSpawn = RaidSpawnCountManager.getEntityTypesToSpawn();		
-		int spawnCountForWave = 0;
-		
-		for(var type : entityTypesToSpawn) {
-			Integer count = RaidSpawnCountManager.getSpawnCountForEntityAndWave(type, wave);
-			if(count == null) {
-				continue;
+	void buildSpawnRing() {
+		spawnRing.build(NexusBlock.getBlockPos(), RaidSpawnCountManager.getEntityTypesToSpawn());
+	}
+
+	/**
+	 * Clears the {@link RaidSpawnRingCache} at the end of a raid.
+	 */
+	void clearSpawnRing() {
+		spawnRing.clear();
+	}
+
+	/**
+	 * Starts loading the chunks of the spawn ring around the current nexus
+	 * position asynchronously, so that neither building the spawn ring nor
+	 * spawning the mobs has to wait for chunks to load.
+	 */
+	void prewarmSpawnRingChunks() {
+		arenaChunkLoader.addTickets(NexusBlock.getBlockPos());
+	}
+
+	/**
+	 * Allows the chunks of the spawn ring to be unloaded again.
+	 */
+	void releaseSpawnRingChunks() {
+		arenaChunkLoader.releaseTickets();
+	}
+
+	/**
+	 * Queues the mobs for the given wave specified in the {@link RaidWavePlan}.
+	 * The queued mobs are spawned over the next ticks by
+	 * {@link #spawnQueuedMobs()}.
+	 * 
+	 * @param wavePlan the plan of the active raid
+	 * @param wave     the wave for which the mobs are queued
+	 * @see #queueMobs(List)
+	 */
+	void queueRaidMobsForWave(RaidWavePlan wavePlan, int wave) {
+		if (!spawnRing.isBuiltFor(NexusBlock.getBlockPos())) {
+			// the ring is not saved, so it needs to be rebuilt after loading a running raid
+			buildSpawnRing();
+		}
+		List<QueuedRaidMob> waveMobs = new ArrayList<>(wavePlan.getEntityTypeCount());
+		int waveCount = 0;
+		for (int i = 0; i < wavePlan.getEntityTypeCount(); i++) {
+			int count = wavePlan.getCount(wave, i);
+			if (count > 0) {
+				waveMobs.add(new QueuedRaidMob(wavePlan.getEntityType(i), count));
+				waveCount += count;
 			}
-			
-			Mob[] spawnedMobsArray = spawnSpecificEntities(type, count);
+		}
+
+		int queuedEntries = queueMobs(waveMobs);
+		raidManager.markDirty();
+		Baseraids.LOGGER.info("Queued {} entities standing in for {} mobs for the wave, {} entity types are deferred",
+				queuedEntries, waveCount, deferredMobs.size());
+	}
+
+	/**
+	 * Queues the deferred mobs of earlier waves, as far as there are free slots.
+	 */
+	private void queueDeferredMobs() {
+		if (deferredMobs.isEmpty() || getFreeSlots() <= 0) {
+			return;
+		}
+		List<QueuedRaidMob> mobs = new ArrayList<>(deferredMobs);
+		deferredMobs.clear();
+		queueMobs(mobs);
+		raidManager.markDirty();
+	}
+
+	/**
+	 * @return the number of mobs that can still be queued without the alive and
+	 *         queued mobs exceeding {@link ConfigOptions#getMaxRaidMobs()}, may be
+	 *         negative
+	 */
+	private int getFreeSlots() {
+		return ConfigOptions.getMaxRaidMobs() - spawnedMobs.getAliveCount() - spawnQueue.size();
+	}
 
-			Collection<Mob> spawnedMobsNonNullCollection = Arrays.stream(spawnedMobsArray)
-					.filter(Objects::nonNull).toList();
+	/**
+	 * Queues the given mobs without exceeding the free slots, see
+	 * {@link #getFreeSlots()}. The entity types are interleaved, so that a
+	 * partially spawned wave already contains all types.
+	 * <p>
+	 * If there are more mobs than free slots, the mobs of each type are merged
+	 * into fewer elite mobs, see {@link RaidEliteManager}. If there are even more
+	 * types than free slots, the types with the most mobs are queued and the
+	 * others are deferred until slots are free again.
+	 * 
+	 * @param mobs the mobs to queue, one entry per entity type whose weight is
+	 *             the number of mobs of that type
+	 * @return the number of queued entries
+	 */
+	private int queueMobs(List<QueuedRaidMob> mobs) {
+		int slots = getFreeSlots();
+		mobs.sort(Comparator.comparingInt((QueuedRaidMob mob) -> mob.weight).reversed());
+		int typeCount = Math.max(0, Math.min(mobs.size(), slots));
+		for (int i = typeCount; i < mobs.size(); i++) {
+			defer(mobs.get(i));
+		}
 
-			spawnCountForWave += spawnedMobsNonNullCollection.size();
-			
-			spawnedMobs.addAll(spawnedMobsNonNullCollection);
+		int totalCount = 0;
+		for (int i = 0; i < typeCount; i++) {
+			totalCount += mobs.get(i).weight;
+		}
+		// the number of queue entries and the mobs they stand in for per entity type
+		int[] remainingEntries = new int[typeCount];
+		int[] remainingCounts = new int[typeCount];
+		for (int i = 0; i < typeCount; i++) {
+			remainingCounts[i] = mobs.get(i).weight;
+			// every type gets one entry and the remaining slots are shared proportionally,
+			// so that the entries never exceed the slots
+			remainingEntries[i] = totalCount <= slots ? remainingCounts[i]
+					: 1 + (int) ((long) remainingCounts[i] * (slots - typeCount) / totalCount);
+		}
 
+		int queuedEntries = 0;
+		boolean queuedAny;
+		do {
+			queuedAny = false;
+			for (int i = 0; i < typeCount; i++) {
+				if (remainingEntries[i] > 0) {
+					// spread the remaining mobs evenly over the remaining entries
+					int weight = (remainingCounts[i] + remainingEntries[i] - 1) / remainingEntries[i];
+					spawnQueue.add(new QueuedRaidMob(mobs.get(i).entityType, weight));
+					remainingCounts[i] -= weight;
+					remainingEntries[i]--;
+					queuedEntries++;
+					queuedAny = true;
+				}
+			}
+		} while (queuedAny);
+		return queuedEntries;
+	}
+
+	/**
+	 * Adds the given mobs to the deferred mobs of their entity type.
+	 */
+	private void defer(QueuedRaidMob mobs) {
+		for (int i = 0; i < deferredMobs.size(); i++) {
+			QueuedRaidMob deferred = deferredMobs.get(i);
+			if (deferred.entityType == mobs.entityType) {
+				deferredMobs.set(i, new QueuedRaidMob(mobs.entityType, deferred.weight + mobs.weight));
+				return;
+			}
 		}
+		deferredMobs.add(mobs);
+	}
+
+	/**
+	 * Spawns mobs from the spawn queue until the queue is empty or the per tick
+	 * budget defined by {@link ConfigOptions#getMaxSpawnsPerTick()} and
+	 * {@link ConfigOptions#getMaxSpawnMicrosPerTick()} is used up. At least one
+	 * mob is spawned per tick, so that the queue always drains. Deferred mobs are
+	 * queued first, if slots became free.
+	 * 
+	 * @return true, if the queue was drained in this tick, no mobs are deferred
+	 *         and any mobs were spawned since the queue was last empty
+	 */
+	boolean spawnQueuedMobs() {
+		queueDeferredMobs();
+		if (spawnQueue.isEmpty()) {
+			return false;
+		}
+
+		int maxSpawns = ConfigOptions.getMaxSpawnsPerTick();
+		long maxNanos = ConfigOptions.getMaxSpawnMicrosPerTick() * 1000L;
+		long startTime = System.nanoTime();
+		int spawnedThisTick = 0;
+		do {
+			QueuedRaidMob queuedMob = spawnQueue.poll();
+			BlockPos squadSpawnPos = raidManager.raidSquadMng.getSpawnPosForNextMember(queuedMob.entityType);
+			Mob mob = spawnEntity(queuedMob.entityType, squadSpawnPos);
+			if (mob != null) {
+				RaidEliteManager.makeElite(mob, queuedMob.weight);
+				raidManager.raidSquadMng.assign(mob);
+				worldManager.entityManager.setupGoals(mob);
+				spawnedMobs.add(mob);
+				hasSpawnedMobs = true;
+				spawnCountSinceQueueEmpty++;
+			}
+			spawnedThisTick++;
+		} while (!spawnQueue.isEmpty() && spawnedThisTick < maxSpawns
+				&& (maxNanos == 0 || System.nanoTime() - startTime < maxNanos));
 
 		raidManager.markDirty();
+		if (!spawnQueue.isEmpty() || !deferredMobs.isEmpty()) {
+			return false;
+		}
+
 		Baseraids.LOGGER.info("Spawned all entities for the wave");
-		return spawnCountForWave > 0;
+		raidManager.raidSquadMng.closeCurrentSquad();
+		boolean spawnedAny = spawnCountSinceQueueEmpty > 0;
+		spawnCountSinceQueueEmpty = 0;
+		return spawnedAny;
 	}
 
 	/**
-	 * Spawns the given number of mobs of the given entity type.
+	 * @return true, if there are no mobs waiting to be spawned, neither queued
+	 *         nor deferred
+	 */
+	boolean isSpawnQueueEmpty() {
+		return spawnQueue.isEmpty() && deferredMobs.isEmpty();
+	}
+
+	/**
+	 * Spawns a single mob of the given entity type. The goals of the mob are not
+	 * set up yet.
 	 * 
 	 * @param <T>        extends {@link Mob} the entity class corresponding to
 	 *                   the {@code entityType}
 	 * @param entityType
-	 * @param numMobs    the amount of mobs to spawn of this type
-	 * @return an array of {@link Mob} containing the spawned entities
+	 * @param spawnPos   the position to spawn the mob at, e.g. next to the leader
+	 *                   of its squad, or null to find a spawn position
+	 * @return the spawned entity or null, if it could not be spawned
 	 */
-	private <T extends Mob> Mob[] spawnSpecificEntities(EntityType<T> entityType, int numMobs) {
-		SpawnGroupData spawnGroupData = null;
-		Mob[] mobs = new Mob[numMobs];
-		for (int i = 0; i < numMobs; i++) {
-			BlockPos spawnPos = findSpawnPos(entityType);
-
-			if (entityType.equals(EntityType.PHANTOM)) {
-				mobs[i] = EntityType.PHANTOM.create(level);
-				mobs[i].moveTo(spawnPos, 0.0F, 0.0F);
-				spawnGroupData = mobs[i].finalizeSpawn((ServerLevelAccessor) level, level.getCurrentDifficultyAt(spawnPos), MobSpawnType.NATURAL, spawnGroupData, (CompoundTag) null);
-				((ServerLevelAccessor) level).addFreshEntityWithPassengers(mobs[i]);
-			} else {
-				mobs[i] = entityType.spawn((ServerLevel) level, spawnPos, MobSpawnType.MOB_SUMMONED);
-			}
+	private <T extends Mob> Mob spawnEntity(EntityType<T> entityType, @Nullable BlockPos spawnPos) {
+		if (spawnPos == null) {
+			spawnPos = findSpawnPos(entityType);
+		}
 
-			if (mobs[i] != null) {
-				if (Baseraids.LOGGER.isDebugEnabled()) {
-					Baseraids.LOGGER.debug("Spawn %s at (%i, %i, %i)", entityType.getDescriptionId(), spawnPos.getX(), spawnPos.getY(), spawnPos.getZ());
-				}
-				
-				worldManager.entityManager.setupGoals(mobs[i]);
+		Mob mob;
+		if (entityType.equals(EntityType.PHANTOM)) {
+			mob = EntityType.PHANTOM.create(level);
+			mob.moveTo(spawnPos, 0.0F, 0.0F);
+			mob.finalizeSpawn((ServerLevelAccessor) level, level.getCurrentDifficultyAt(spawnPos), MobSpawnType.NATURAL, null, (CompoundTag) null);
+			((ServerLevelAccessor) level).addFreshEntityWithPassengers(mob);
+		} else {
+			mob = entityType.spawn((ServerLevel) level, spawnPos, MobSpawnType.MOB_SUMMONED);
+		}
+
+		if (mob != null) {
+			if (Baseraids.LOGGER.isDebugEnabled()) {
+				Baseraids.LOGGER.debug("Spawn {} at ({}, {}, {})", entityType.getDescriptionId(), spawnPos.getX(), spawnPos.getY(), spawnPos.getZ());
 			}
 		}
-		return mobs;
+		return mob;
 	}
 
 	/**
 	 * Finds and returns a compatible spawn position for the given entity type. The
-	 * position is selected randomly on a circle around the nexus block.
+	 * position is drawn from the {@link RaidSpawnRingCache}. Only if the ring holds
+	 * no valid position for this entity type, it is searched randomly on a circle
+	 * around the nexus block.
 	 * 
 	 * @param entityType
 	 * @return compatible spawn position
 	 */
 	private <T extends Mob> BlockPos findSpawnPos(EntityType<T> entityType) {
+		BlockPos spawnPos = spawnRing.drawSpawnPos(entityType);
+		if (spawnPos != null) {
+			return spawnPos;
+		}
+		return searchSpawnPos(entityType);
+	}
+
+	/**
+	 * Searches a compatible spawn position for the given entity type. The
+	 * position is selected randomly on a circle around the nexus block.
+	 * 
+	 * @param entityType
+	 * @return compatible spawn position
+	 */
+	private <T extends Mob> BlockPos searchSpawnPos(EntityType<T> entityType) {
 		int tries = 0;
 		BlockPos spawnPos;
 		do {
@@ -216,29 +430,36 @@ public class RaidSpawningManager {
 	}
 	
 	/**
+	 * Dead mobs are removed from {@link #spawnedMobs} by
+	 * {@link #onRaidMobDeath(LivingDeathEvent)} and
+	 * {@link #onRaidMobLeaveWorld(EntityLeaveLevelEvent)}, so this check does not
+	 * need to look at the mobs.
+	 * 
 	 * @return {@code true} if and only if all mobs that were spawned by this object
 	 *         are dead.
 	 */
 	boolean areAllSpawnedMobsDead() {
-		if (spawnedMobs.isEmpty()) {
-			raidManager.markDirty();
-			return false;
-		}
+		return hasSpawnedMobs && spawnedMobs.getAliveCount() == 0;
+	}
 
-		for (Mob mob : spawnedMobs) {
-			if (!mob.isDeadOrDying()) {
-				return false;
-			}
-		}
-		return true;
+	/**
+	 * @return the number of spawned mobs that are still alive
+	 */
+	int getAliveMobCount() {
+		return spawnedMobs.getAliveCount();
 	}
 
 	/**
 	 * Kills all mobs that were spawned by this object.
 	 */
 	void killAllMobs() {
-		spawnedMobs.forEach(mob -> mob.remove(RemovalReason.KILLED));
+		// removing a mob fires an event that modifies the registry, so iterate over a copy
+		new ArrayList<>(spawnedMobs.getMobs()).forEach(mob -> mob.remove(RemovalReason.KILLED));
 		spawnedMobs.clear();
+		hasSpawnedMobs = false;
+		spawnQueue.clear();
+		deferredMobs.clear();
+		spawnCountSinceQueueEmpty = 0;
 		raidManager.markDirty();
 	}
 
@@ -258,14 +479,14 @@ public class RaidSpawningManager {
 	private void readSpawnedMobsList(CompoundTag nbt) {
 		ListTag spawnedMobsList = nbt.getList("spawnedMobs", 10);
 		spawnedMobs.clear();
-		spawnedMobsUUIDs.clear();
 
 		for (int index = 0; index < spawnedMobsList.size(); index++) {
 			CompoundTag compoundTag = spawnedMobsList.getCompound(index);
 			UUID entityUUID = compoundTag.getUUID("ID" + index);
 			Baseraids.LOGGER.debug("reading entity with ID {}", entityUUID);
-			spawnedMobsUUIDs.add(entityUUID);
+			spawnedMobs.addPending(entityUUID);
 		}
+		hasSpawnedMobs = nbt.getBoolean("hasSpawnedMobs") || !spawnedMobsList.isEmpty();
 	}
 
 	/**
@@ -280,21 +501,67 @@ public class RaidSpawningManager {
 
 		ListTag spawnedMobsList = new ListTag();
 		int index = 0;
-		for (Mob mob : spawnedMobs) {
-			CompoundTag compound = new CompoundTag();
-
-			compound.putUUID("ID" + index, mob.getUUID());
-			Baseraids.LOGGER.debug("writing entity with UUID {}", mob.getUUID());
-			spawnedMobsList.add(compound);
+		for (Mob mob : spawnedMobs.getMobs()) {
+			writeSpawnedMobUUID(spawnedMobsList, index, mob.getUUID());
+			index++;
+		}
+		// mobs that were not loaded again since the last loading are still part of the raid
+		for (UUID uuid : spawnedMobs.getPendingUUIDs()) {
+			writeSpawnedMobUUID(spawnedMobsList, index, uuid);
 			index++;
 		}
 
 		nbt.put("spawnedMobs", spawnedMobsList);
+
+		ListTag spawnQueueList = new ListTag();
+		spawnQueue.forEach(queuedMob -> spawnQueueList.add(queuedMob.write()));
+		nbt.put("spawnQueue", spawnQueueList);
+		ListTag deferredMobsList = new ListTag();
+		deferredMobs.forEach(deferred -> deferredMobsList.add(deferred.write()));
+		nbt.put("deferredMobs", deferredMobsList);
+		nbt.putInt("spawnCountSinceQueueEmpty", spawnCountSinceQueueEmpty);
+		nbt.putBoolean("hasSpawnedMobs", hasSpawnedMobs);
 		return nbt;
 	}
 
+	private void writeSpawnedMobUUID(ListTag spawnedMobsList, int index, UUID uuid) {
+		CompoundTag compound = new CompoundTag();
+		compound.putUUID("ID" + index, uuid);
+		Baseraids.LOGGER.debug("writing entity with UUID {}", uuid);
+		spawnedMobsList.add(compound);
+	}
+
 	void read(CompoundTag nbt) {
 		readSpawnedMobsList(nbt);
+		readSpawnQueue(nbt);
+	}
+
+	/**
+	 * Reads the entity types of the mobs that were waiting to be spawned. This
+	 * function assumes that the nbt was previously written by this class or to be
+	 * precise, that the nbt includes certain elements.
+	 * 
+	 * @param nbt the nbt that will be read out. It is assumed to include certain
+	 *            elements.
+	 */
+	private void readSpawnQueue(CompoundTag nbt) {
+		spawnQueue.clear();
+		ListTag spawnQueueList = nbt.getList("spawnQueue", 10);
+		for (int index = 0; index < spawnQueueList.size(); index++) {
+			QueuedRaidMob queuedMob = QueuedRaidMob.read(spawnQueueList.getCompound(index));
+			if (queuedMob != null) {
+				spawnQueue.add(queuedMob);
+			}
+		}
+		deferredMobs.clear();
+		ListTag deferredMobsList = nbt.getList("deferredMobs", 10);
+		for (int index = 0; index < deferredMobsList.size(); index++) {
+			QueuedRaidMob deferred = QueuedRaidMob.read(deferredMobsList.getCompound(index));
+			if (deferred != null) {
+				deferredMobs.add(deferred);
+			}
+		}
+		spawnCountSinceQueueEmpty = nbt.getInt("spawnCountSinceQueueEmpty");
 	}
 
 	/**
@@ -318,18 +585,90 @@ public class RaidSpawningManager {
 			return;
 		}
 
-		UUID uuid = entity.getUUID();
-		if (!spawnedMobsUUIDs.contains(uuid)) {
+		Mob mob = (Mob) entity;
+		if (!spawnedMobs.claimPending(mob)) {
 			return;
 		}
 
-		spawnedMobsUUIDs.remove(uuid);
-		Mob mob = (Mob) entity;
-		spawnedMobs.add(mob);
 		worldManager.entityManager.setupGoals(mob);
 		raidManager.markDirty();
 	}
 
+	/**
+	 * Removes a raid mob from {@link #spawnedMobs} when it dies.
+	 * 
+	 * @param event the event of type {@link LivingDeathEvent} that triggers this
+	 *              function
+	 */
+	@SubscribeEvent
+	public void onRaidMobDeath(final LivingDeathEvent event) {
+		if (event.getEntity().level.isClientSide()) {
+			return;
+		}
+		if (spawnedMobs.remove(event.getEntity())) {
+			raidManager.raidSquadMng.remove(event.getEntity());
+			raidManager.markDirty();
+		}
+	}
+
+	/**
+	 * Removes a raid mob from {@link #spawnedMobs} when it is removed from the
+	 * world. If it was only unloaded, it stays part of the raid and is recovered
+	 * by {@link #onEntityJoinWorld(EntityJoinLevelEvent)} when it is loaded again.
+	 * 
+	 * @param event the event of type {@link EntityLeaveLevelEvent} that triggers
+	 *              this function
+	 */
+	@SubscribeEvent
+	public void onRaidMobLeaveWorld(final EntityLeaveLevelEvent event) {
+		if (event.getLevel().isClientSide()) {
+			return;
+		}
+		if (!(event.getEntity() instanceof Mob mob) || !spawnedMobs.contains(mob)) {
+			return;
+		}
+
+		raidManager.raidSquadMng.remove(mob);
+		RemovalReason reason = mob.getRemovalReason();
+		if (reason == RemovalReason.UNLOADED_TO_CHUNK || reason == RemovalReason.UNLOADED_WITH_PLAYER) {
+			spawnedMobs.moveToPending(mob);
+		} else {
+			spawnedMobs.remove(mob);
+		}
+		raidManager.markDirty();
+	}
+
+	/**
+	 * A mob that is waiting to be spawned. If its weight is greater than 1, it is
+	 * spawned as an elite mob standing in for that many mobs.
+	 */
+	private static class QueuedRaidMob {
+		private final EntityType<? extends Mob> entityType;
+		private final int weight;
+
+		private QueuedRaidMob(EntityType<? extends Mob> entityType, int weight) {
+			this.entityType = entityType;
+			this.weight = weight;
+		}
+
+		private CompoundTag write() {
+			CompoundTag nbt = new CompoundTag();
+			nbt.putString("type", EntityType.getKey(entityType).toString());
+			nbt.putInt("weight", weight);
+			return nbt;
+		}
+
+		/**
+		 * @return the read mob or null, if its entity type does not exist
+		 */
+		@SuppressWarnings("unchecked")
+		private static QueuedRaidMob read(CompoundTag nbt) {
+			return EntityType.byString(nbt.getString("type"))
+					.map(type -> new QueuedRaidMob((EntityType<? extends Mob>) type, Math.max(1, nbt.getInt("weight"))))
+					.orElse(null);
+		}
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(spawnedMobs, level);
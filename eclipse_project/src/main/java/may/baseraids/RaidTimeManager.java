@@ -8,11 +8,11 @@ import org.jline.utils.Log;
 import com.google.common.collect.Sets;
 
 import may.baseraids.config.ConfigOptions;
-import may.baseraids.entities.RaidSpawnCountManager;
 import may.baseraids.nexus.NexusBlock;
 import may.baseraids.nexus.NexusBlock.NexusState;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.sounds.SoundSource;
@@ -31,6 +31,8 @@ public class RaidTimeManager {
 	private int timeUntilRaidInLastWarnPlayersOfRaidRun = -1;
 	private long nextRaidGameTime = -1;
 	private int activeRaidTicks = 0;
+	/** The value of {@link #activeRaidTicks} when the last wave was spawned */
+	private int lastWaveRaidTicks = 0;
 	private long daytimeBeforeRaid = 0;
 	
 	/**
@@ -52,7 +54,24 @@ public class RaidTimeManager {
 	private static final Set<Integer> TIMES_TO_WARN_PLAYERS_OF_RAID = Sets.newHashSet(4800, 3600, 2400, 1800, 1200, 900,
 			600, 300, 120, 60, 30, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1);
 	
+	/** defines the regular time between two waves in ticks */
 	private static final int TIME_BETWEEN_WAVES = 1800;
+	/**
+	 * defines the minimum time between two waves in ticks, if all mobs of the
+	 * previous waves are dead
+	 */
+	private static final int MIN_TIME_BETWEEN_WAVES = 200;
+	/**
+	 * defines the maximum time in ticks a wave may be delayed beyond
+	 * {@link #TIME_BETWEEN_WAVES} because of too many alive mobs or a slow server
+	 */
+	private static final int MAX_WAVE_DELAY = 1800;
+	
+	/**
+	 * defines the remaining time until the raid (in seconds) from which on the
+	 * chunks of the raid arena are loaded
+	 */
+	private static final int PREWARM_RAID_ARENA_TIME = 60;
 	
 	public RaidTimeManager(RaidManager raidManager, Level level) {
 		MinecraftForge.EVENT_BUS.register(this);
@@ -64,10 +83,15 @@ public class RaidTimeManager {
 	/**
 	 * Warns all players in the world of an upcoming raid via chat messages and
 	 * sounds. The times at which to warn are specified in the field
-	 * {@link #TIMES_TO_WARN_PLAYERS_OF_RAID}.
+	 * {@link #TIMES_TO_WARN_PLAYERS_OF_RAID}. During the last
+	 * {@link #PREWARM_RAID_ARENA_TIME} seconds, the chunks of the raid arena are
+	 * loaded in the background.
 	 */
 	void warnPlayersOfRaid() {
 		int timeUntilRaidInSec = getTimeUntilRaid().getSec();
+		if (timeUntilRaidInSec <= PREWARM_RAID_ARENA_TIME && !raidManager.isRaidActive()) {
+			raidManager.prewarmRaidArena();
+		}
 		// Because this method is called multiple times per second,
 		// avoid multiple messages for the same second by remembering the last warning
 		// time
@@ -104,8 +128,63 @@ public class RaidTimeManager {
 		return NexusBlock.getState() == NexusState.BLOCK;
 	}
 	
+	/**
+	 * Checks and returns whether the next wave should be spawned. The first wave
+	 * is spawned right at the start of the raid. Every following wave is spawned
+	 * {@link #TIME_BETWEEN_WAVES} after the previous one, unless
+	 * <ul>
+	 * <li>all mobs of the previous waves are dead, then it is spawned after
+	 * {@link #MIN_TIME_BETWEEN_WAVES} already
+	 * <li>more mobs than {@link ConfigOptions#getWaveDelayAliveMobThreshold()} are
+	 * alive or the average tick time is above
+	 * {@link ConfigOptions#getWaveDelayTickTimeTarget()}, then it is delayed by up
+	 * to {@link #MAX_WAVE_DELAY}
+	 * </ul>
+	 * 
+	 * @return a flag whether the next wave should be spawned
+	 */
 	public boolean shouldSpawnWave() {
-		return activeRaidTicks % TIME_BETWEEN_WAVES == 0;
+		if (raidManager.getCurWave() >= raidManager.getWavePlan().getMaxWave()) {
+			return false;
+		}
+		if (raidManager.getCurWave() == 0) {
+			return true;
+		}
+
+		int ticksSinceLastWave = activeRaidTicks - lastWaveRaidTicks;
+		if (ticksSinceLastWave < MIN_TIME_BETWEEN_WAVES) {
+			return false;
+		}
+		if (raidManager.isRaidFieldClear()) {
+			return true;
+		}
+		if (ticksSinceLastWave < TIME_BETWEEN_WAVES) {
+			return false;
+		}
+		if (ticksSinceLastWave >= TIME_BETWEEN_WAVES + MAX_WAVE_DELAY) {
+			return true;
+		}
+		return !isRaidUnderLoad();
+	}
+
+	/**
+	 * @return true, if there are too many alive raid mobs or the server is too
+	 *         slow to spawn another wave
+	 */
+	private boolean isRaidUnderLoad() {
+		if (raidManager.getAliveRaidMobCount() > ConfigOptions.getWaveDelayAliveMobThreshold()) {
+			return true;
+		}
+		MinecraftServer server = level.getServer();
+		return server != null && server.getAverageTickTime() > ConfigOptions.getWaveDelayTickTimeTarget();
+	}
+
+	/**
+	 * Remembers the current time as the time of the last spawned wave.
+	 */
+	void markWaveSpawned() {
+		lastWaveRaidTicks = activeRaidTicks;
+		markDirty();
 	}
 	
 	/**
@@ -183,12 +262,23 @@ public class RaidTimeManager {
 		return new MCDuration(nextRaidGameTime - level.getGameTime());
 	}
 
-	boolean isMaxRaidDurationOver() {		
-		return activeRaidTicks > RaidSpawnCountManager.getMaxWave() * TIME_BETWEEN_WAVES + ConfigOptions.getMaxRaidDuration();
+	/**
+	 * Checks whether the raid has lasted long enough after its last wave. The
+	 * raid can last {@link ConfigOptions#getMaxRaidDuration()} longer than
+	 * {@link #TIME_BETWEEN_WAVES} after the last wave was spawned.
+	 * 
+	 * @return true, if the maximum duration of the raid is over
+	 */
+	boolean isMaxRaidDurationOver() {
+		if (raidManager.getCurWave() < raidManager.getWavePlan().getMaxWave()) {
+			return false;
+		}
+		return activeRaidTicks - lastWaveRaidTicks > TIME_BETWEEN_WAVES + ConfigOptions.getMaxRaidDuration();
 	}
 	
 	void resetActiveRaidTicks() {
 		activeRaidTicks = 0;
+		lastWaveRaidTicks = 0;
 		markDirty();
 	}
 
@@ -267,6 +357,7 @@ public class RaidTimeManager {
 		CompoundTag nbt = new CompoundTag();
 		nbt.putLong("nextRaidGameTime", nextRaidGameTime);
 		nbt.putInt("activeRaidTicks", activeRaidTicks);
+		nbt.putInt("lastWaveRaidTicks", lastWaveRaidTicks);
 		nbt.putLong("daytimeBeforeRaid", daytimeBeforeRaid);
 		return nbt;
 	}
@@ -286,6 +377,7 @@ public class RaidTimeManager {
 		try {
 			nextRaidGameTime = nbt.getLong("nextRaidGameTime");
 			activeRaidTicks = nbt.getInt("activeRaidTicks");
+			lastWaveRaidTicks = nbt.getInt("lastWaveRaidTicks");
 			daytimeBeforeRaid = nbt.getLong("daytimeBeforeRaid");
 
 			Baseraids.LOGGER.debug("Finished loading RaidManager");
@@ -308,7 +400,7 @@ public class RaidTimeManager {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(activeRaidTicks, daytimeBeforeRaid, nextRaidGameTime);
+		return Objects.hash(activeRaidTicks, daytimeBeforeRaid, lastWaveRaidTicks, nextRaidGameTime);
 	}
 
 	@Override
@@ -321,6 +413,7 @@ public class RaidTimeManager {
 			return false;
 		RaidTimeManager other = (RaidTimeManager) obj;
 		return activeRaidTicks == other.activeRaidTicks && daytimeBeforeRaid == other.daytimeBeforeRaid
+				&& lastWaveRaidTicks == other.lastWaveRaidTicks
 				&& nextRaidGameTime == other.nextRaidGameTime;
 	}
 }
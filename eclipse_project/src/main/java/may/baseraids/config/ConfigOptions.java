@@ -22,11 +22,29 @@ public class ConfigOptions {
 	private static ForgeConfigSpec.IntValue monsterBlockBreakingTimeMultiplier;
 	private static ForgeConfigSpec.BooleanValue restoreDestroyedBlocks;
 	
+	// SPAWNING
+	private static ForgeConfigSpec.IntValue maxSpawnsPerTick;
+	private static ForgeConfigSpec.IntValue maxSpawnMicrosPerTick;
+	private static ForgeConfigSpec.IntValue waveDelayAliveMobThreshold;
+	private static ForgeConfigSpec.IntValue waveDelayTickTimeTarget;
+	private static ForgeConfigSpec.IntValue maxRaidMobs;
+	
+	// DEBRIS
+	private static ForgeConfigSpec.IntValue raidArrowLifetime;
+	private static ForgeConfigSpec.IntValue maxRaidArenaDrops;
+	private static ForgeConfigSpec.IntValue raidXpMergeTicks;
+	
+	// CRACK OVERLAYS
+	private static ForgeConfigSpec.IntValue crackOverlayDistance;
+	private static ForgeConfigSpec.IntValue maxCrackOverlaysPerPlayer;
+	
 	// SOUNDS
 	private static ForgeConfigSpec.BooleanValue enableSoundWinLose;
 	private static ForgeConfigSpec.BooleanValue enableSoundRaidHeartbeat;
 	private static ForgeConfigSpec.BooleanValue enableSoundCountdown;
 	private static ForgeConfigSpec.BooleanValue enableSoundNexusAmbient;
+	private static ForgeConfigSpec.IntValue maxRaidSoundVoicesPerArea;
+	private static ForgeConfigSpec.IntValue maxRaidSoundVoicesPerTick;
 	private static ForgeConfigSpec.BooleanValue enableTimeReductionFromSleeping;
 	
 	private static final int MONSTER_BLOCK_BREAKING_TIME_MULTIPLIER_DEFAULT = 2;
@@ -61,6 +79,46 @@ public class ConfigOptions {
 						+ "No matter the value, you can always restore the blocks using a command.")
 				.define(Baseraids.MODID + ".restoreDestroyedBlocks", false);
 		
+		maxSpawnsPerTick = builder
+				.comment("Maximum number of raid mobs that are spawned per tick. A wave is spread over several ticks, if it contains more mobs.")
+				.defineInRange(Baseraids.MODID + ".maxSpawnsPerTick", 4, 1, 1000);
+		
+		maxSpawnMicrosPerTick = builder
+				.comment("Maximum time in microseconds that may be spent on spawning raid mobs per tick. At least one mob is spawned per tick. 0 disables the time limit.")
+				.defineInRange(Baseraids.MODID + ".maxSpawnMicrosPerTick", 5000, 0, 50000);
+		
+		waveDelayAliveMobThreshold = builder
+				.comment("The next wave is delayed while more raid mobs than this are alive.")
+				.defineInRange(Baseraids.MODID + ".waveDelayAliveMobThreshold", 40, 0, 10000);
+		
+		waveDelayTickTimeTarget = builder
+				.comment("The next wave is delayed while the average server tick takes longer than this (in milliseconds). 50ms is the limit for 20 ticks per second.")
+				.defineInRange(Baseraids.MODID + ".waveDelayTickTimeTarget", 45, 1, 1000);
+		
+		maxRaidMobs = builder
+				.comment("Maximum number of raid mobs that are alive at the same time. If a wave would exceed this limit, several mobs of the same type are merged into one elite mob with proportionally more health and block breaking damage.")
+				.defineInRange(Baseraids.MODID + ".maxRaidMobs", 60, 1, 10000);
+		
+		raidArrowLifetime = builder
+				.comment("Time in ticks after which an arrow shot by a raid mob is removed once it is stuck in the ground.")
+				.defineInRange(Baseraids.MODID + ".raidArrowLifetime", 100, 1, 1200);
+		
+		maxRaidArenaDrops = builder
+				.comment("Maximum number of item stacks dropped by mobs in the raid arena during a raid. Drops beyond this limit are discarded.")
+				.defineInRange(Baseraids.MODID + ".maxRaidArenaDrops", 200, 0, 10000);
+		
+		raidXpMergeTicks = builder
+				.comment("Time in ticks during which the experience of mobs dying in the raid arena is collected and then dropped as few orbs. 0 disables collecting.")
+				.defineInRange(Baseraids.MODID + ".raidXpMergeTicks", 40, 0, 1200);
+		
+		crackOverlayDistance = builder
+				.comment("Maximum distance in blocks at which a player sees the cracks of blocks damaged by raid mobs.")
+				.defineInRange(Baseraids.MODID + ".crackOverlayDistance", 32, 1, 128);
+		
+		maxCrackOverlaysPerPlayer = builder
+				.comment("Maximum number of blocks damaged by raid mobs that show cracks to a player at the same time. The blocks closest to breaking are shown first.")
+				.defineInRange(Baseraids.MODID + ".maxCrackOverlaysPerPlayer", 32, 0, 1000);
+		
 		enableSoundWinLose = builder
 				.comment("If set to true, the sounds after winning or losing a raid will be played.")
 				.define(Baseraids.MODID + ".enableSoundWinLose", true);
@@ -77,6 +135,14 @@ public class ConfigOptions {
 				.comment("If set to true, the ambient sound of the nexus will be played.")
 				.define(Baseraids.MODID + ".enableSoundNexusAmbient", true);
 		
+		maxRaidSoundVoicesPerArea = builder
+				.comment("Maximum number of different sounds played by a raid in an area of 8x8x8 blocks per tick. The same sound played several times in an area is merged into one.")
+				.defineInRange(Baseraids.MODID + ".maxRaidSoundVoicesPerArea", 4, 1, 64);
+		
+		maxRaidSoundVoicesPerTick = builder
+				.comment("Maximum number of sounds played by a raid per tick after merging.")
+				.defineInRange(Baseraids.MODID + ".maxRaidSoundVoicesPerTick", 32, 1, 1000);
+		
 		enableTimeReductionFromSleeping = builder
 				.comment("If set to true, the time until the next raid is reduced when you sleep in a bed.")
 				.define(Baseraids.MODID + ".enableTimeReductionFromSleeping", false);
@@ -108,6 +174,54 @@ public class ConfigOptions {
 		return BooleanUtils.toBoolean(restoreDestroyedBlocks.get());
 	}
 
+	public static int getMaxSpawnsPerTick() {
+		return maxSpawnsPerTick.get();
+	}
+
+	public static int getMaxSpawnMicrosPerTick() {
+		return maxSpawnMicrosPerTick.get();
+	}
+
+	public static int getWaveDelayAliveMobThreshold() {
+		return waveDelayAliveMobThreshold.get();
+	}
+
+	public static int getWaveDelayTickTimeTarget() {
+		return waveDelayTickTimeTarget.get();
+	}
+
+	public static int getMaxRaidMobs() {
+		return maxRaidMobs.get();
+	}
+
+	public static int getRaidArrowLifetime() {
+		return raidArrowLifetime.get();
+	}
+
+	public static int getMaxRaidArenaDrops() {
+		return maxRaidArenaDrops.get();
+	}
+
+	public static int getRaidXpMergeTicks() {
+		return raidXpMergeTicks.get();
+	}
+
+	public static int getCrackOverlayDistance() {
+		return crackOverlayDistance.get();
+	}
+
+	public static int getMaxCrackOverlaysPerPlayer() {
+		return maxCrackOverlaysPerPlayer.get();
+	}
+
+	public static int getMaxRaidSoundVoicesPerArea() {
+		return maxRaidSoundVoicesPerArea.get();
+	}
+
+	public static int getMaxRaidSoundVoicesPerTick() {
+		return maxRaidSoundVoicesPerTick.get();
+	}
+
 	public static boolean getEnableSoundWinLose() {
 		return BooleanUtils.toBoolean(enableSoundWinLose.get());
 	}
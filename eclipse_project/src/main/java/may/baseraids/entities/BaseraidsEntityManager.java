@@ -1,19 +1,16 @@
 package may.baseraids.entities;
 
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
 
+import may.baseraids.RaidManager;
 import may.baseraids.WorldManager;
 import may.baseraids.entities.ai.goal.*;
+import net.minecraft.world.Difficulty;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.ai.goal.*;
-import net.minecraft.world.entity.ai.goal.target.HurtByTargetGoal;
-import net.minecraft.world.entity.ai.goal.target.NearestAttackableTargetGoal;
-import net.minecraft.world.entity.ai.goal.target.TargetGoal;
+import net.minecraft.world.entity.monster.AbstractSkeleton;
 import net.minecraft.world.entity.monster.CaveSpider;
 import net.minecraft.world.entity.monster.Phantom;
 import net.minecraft.world.entity.monster.Skeleton;
@@ -21,18 +18,17 @@ import net.minecraft.world.entity.monster.Spider;
 import net.minecraft.world.entity.monster.WitherSkeleton;
 import net.minecraft.world.entity.monster.Zombie;
 import net.minecraft.world.entity.monster.ZombifiedPiglin;
-import net.minecraft.world.entity.player.Player;
-import net.minecraft.world.entity.animal.IronGolem;
 
 /**
  * This class is used for setting up the default monsters with custom AI for
- * raiding.
+ * raiding. The setup of each entity type is compiled once into a
+ * {@link RaidGoalSetupPlan} and applied to every spawned mob of that type.
  * 
  * @author Natascha May
  */
 public class BaseraidsEntityManager {
 
-	private static Map<EntityType<?>, Consumer<Mob>> setupsRegistry = new HashMap<>();
+	private static Map<EntityType<?>, RaidGoalSetupPlan<?>> setupsRegistry = new HashMap<>();
 
 	private WorldManager worldManager;
 	
@@ -41,141 +37,140 @@ public class BaseraidsEntityManager {
 	}
 
 	public void registerSetups() {
-		setupsRegistry.put(EntityType.ZOMBIE, entity -> setupZombieGoals((Zombie) entity));
-		setupsRegistry.put(EntityType.SPIDER, entity -> setupSpiderGoals((Spider) entity));
-		setupsRegistry.put(EntityType.SKELETON, entity -> setupSkeletonGoals((Skeleton) entity));
-		setupsRegistry.put(EntityType.PHANTOM, entity -> setupPhantomGoals((Phantom) entity));
-		setupsRegistry.put(EntityType.ZOMBIFIED_PIGLIN,
-				entity -> setupZombifiedPiglinGoals((ZombifiedPiglin) entity));
-		setupsRegistry.put(EntityType.CAVE_SPIDER, entity -> setupCaveSpiderGoals((CaveSpider) entity));
-		setupsRegistry.put(EntityType.WITHER_SKELETON,
-				entity -> setupWitherSkeletonGoals((WitherSkeleton) entity));
+		setupsRegistry.put(EntityType.ZOMBIE, createZombieSetup());
+		setupsRegistry.put(EntityType.SPIDER, createSpiderSetup());
+		setupsRegistry.put(EntityType.SKELETON, createSkeletonSetup());
+		setupsRegistry.put(EntityType.PHANTOM, createPhantomSetup());
+		setupsRegistry.put(EntityType.ZOMBIFIED_PIGLIN, createZombifiedPiglinSetup());
+		setupsRegistry.put(EntityType.CAVE_SPIDER, createCaveSpiderSetup());
+		setupsRegistry.put(EntityType.WITHER_SKELETON, createWitherSkeletonSetup());
 	}
 
+	/**
+	 * Sets up the raid goals of the given entity, if its type is registered.
+	 * 
+	 * @param entity the entity to set up
+	 */
+	@SuppressWarnings("unchecked")
 	public void setupGoals(Mob entity) {
-		if (!setupsRegistry.containsKey(entity.getType()))
+		RaidGoalSetupPlan<Mob> plan = (RaidGoalSetupPlan<Mob>) setupsRegistry.get(entity.getType());
+		if (plan == null)
 			return;
-		setupsRegistry.get(entity.getType()).accept(entity);
+		plan.apply(entity);
 	}
 
-	public void setupZombieGoals(Zombie entity) {
-		// remove unwanted goals
-		final List<Class<? extends Goal>> goalClassesToRemove = Arrays.asList(RandomLookAroundGoal.class,
-				Zombie.ZombieAttackTurtleEggGoal.class, LookAtPlayerGoal.class, MoveThroughVillageGoal.class,
-				WaterAvoidingRandomStrollGoal.class);
-		removeGoalsFromList(entity, goalClassesToRemove);
-		removeTargetsFromList(entity, Arrays.asList(HurtByTargetGoal.class, NearestAttackableTargetGoal.class));
-
-		entity.goalSelector.addGoal(1, new AttackBlockMeleeGoal<>(entity, worldManager.getRaidManager()));
-		entity.goalSelector.addGoal(1, new MoveTowardsNexusGoal<>(entity, worldManager.getRaidManager()));
-		entity.targetSelector.addGoal(1, new HurtByNotRaidingTargetGoal(entity, worldManager.getRaidManager()).setAlertOthers(ZombifiedPiglin.class));
-		entity.targetSelector.addGoal(2, new NearestAttackableTargetGoal<>(entity, Player.class, true));
-		entity.targetSelector.addGoal(3, new NearestAttackableTargetGoal<>(entity, IronGolem.class, true));
-
-		entity.setPersistenceRequired();
+	private RaidManager getRaidManager() {
+		return worldManager.getRaidManager();
 	}
 
-	public void setupSpiderGoals(Spider entity) {
-		// remove unwanted goals
-		final List<Class<? extends Goal>> goalClassesToRemove = Arrays.asList(FloatGoal.class, WaterAvoidingRandomStrollGoal.class, LookAtPlayerGoal.class, RandomLookAroundGoal.class);
-		removeGoalsFromList(entity, goalClassesToRemove);
-		removeTargetsFromList(entity, Arrays.asList(HurtByTargetGoal.class));
-
-		entity.goalSelector.addGoal(1, new MoveTowardsNexusGoal<>(entity, worldManager.getRaidManager()));
-		entity.goalSelector.addGoal(1, new AttackBlockMeleeGoal<>(entity, worldManager.getRaidManager()));
-		entity.targetSelector.addGoal(1, new HurtByNotRaidingTargetGoal(entity, worldManager.getRaidManager()));
-
-		entity.setPersistenceRequired();
+	private RaidGoalSetupPlan<Zombie> createZombieSetup() {
+		return RaidGoalSetupPlan.<Zombie>builder()
+				.removeAllGoals()
+				.removeAllTargets()
+				.addGoal(1, entity -> new RaidBrainGoal<>(entity, getRaidManager(),
+						new MoveTowardsNexusGoal<>(entity, getRaidManager()),
+						new AttackBlockMeleeGoal<>(entity, getRaidManager()),
+						new ZombieAttackGoal(entity, 1.0D, false))
+						.targetPlayers()
+						.targetIronGolems()
+						.setAlertOthers(ZombifiedPiglin.class))
+				.build();
 	}
 
-	public void setupSkeletonGoals(Skeleton entity) {
-		// remove unwanted goals
-		final List<Class<? extends Goal>> goalClassesToRemove = Arrays.asList(LookAtPlayerGoal.class, RandomLookAroundGoal.class,
-				WaterAvoidingRandomStrollGoal.class);
-		removeGoalsFromList(entity, goalClassesToRemove);
-		removeTargetsFromList(entity, Arrays.asList(HurtByTargetGoal.class, NearestAttackableTargetGoal.class));
-
-		entity.goalSelector.addGoal(1, new MoveTowardsNexusGoal<>(entity, worldManager.getRaidManager()));
-		entity.goalSelector.addGoal(1,
-				new AttackBlockRangedGoal<Skeleton>(entity, worldManager.getRaidManager()));
-		entity.targetSelector.addGoal(1, new HurtByNotRaidingTargetGoal(entity, worldManager.getRaidManager()));
-		entity.targetSelector.addGoal(2, new NearestAttackableTargetGoal<>(entity, Player.class, true));
-		entity.targetSelector.addGoal(3, new NearestAttackableTargetGoal<>(entity, IronGolem.class, true));
-
-		entity.setPersistenceRequired();
+	private RaidGoalSetupPlan<Spider> createSpiderSetup() {
+		return RaidGoalSetupPlan.<Spider>builder()
+				.removeAllGoals()
+				.removeAllTargets()
+				.addGoal(1, entity -> new RaidBrainGoal<>(entity, getRaidManager(),
+						new MoveTowardsNexusGoal<>(entity, getRaidManager()),
+						new AttackBlockMeleeGoal<>(entity, getRaidManager()),
+						createSpiderFightGoals(entity))
+						.targetPlayers()
+						.targetIronGolems()
+						.huntOnlyInDarkness())
+				.build();
 	}
 
-	public void setupPhantomGoals(Phantom entity) {
-		// remove unwanted goals
-		final List<Class<? extends Goal>> goalClassesToRemove = Arrays.asList();
-		removeGoalsFromList(entity, goalClassesToRemove);
-
-		entity.goalSelector.addGoal(1, new MoveTowardsNexusPhantomGoal(entity, worldManager.getRaidManager()));
-
-		entity.setPersistenceRequired();
+	private RaidGoalSetupPlan<Skeleton> createSkeletonSetup() {
+		return RaidGoalSetupPlan.<Skeleton>builder()
+				.removeAllGoals()
+				.removeAllTargets()
+				.addGoal(1, entity -> new RaidBrainGoal<>(entity, getRaidManager(),
+						new MoveTowardsNexusGoal<>(entity, getRaidManager()),
+						new AttackBlockRangedGoal<Skeleton>(entity, getRaidManager()),
+						createSkeletonFightGoals(entity))
+						.targetPlayers()
+						.targetIronGolems())
+				.build();
 	}
 
-	public void setupZombifiedPiglinGoals(ZombifiedPiglin entity) {
-		// remove unwanted goals
-		removeGoalsFromList(entity, Arrays.asList(WaterAvoidingRandomStrollGoal.class));
-		removeTargetsFromList(entity, Arrays.asList(HurtByTargetGoal.class));
-
-		entity.goalSelector.addGoal(1, new AttackBlockMeleeGoal<>(entity, worldManager.getRaidManager()));
-		entity.goalSelector.addGoal(1, new MoveTowardsNexusGoal<>(entity, worldManager.getRaidManager()));
-		entity.targetSelector.addGoal(1,
-				new HurtByNotRaidingTargetGoal(entity, worldManager.getRaidManager()).setAlertOthers(ZombifiedPiglin.class));
-
-		entity.setPersistenceRequired();
+	private RaidGoalSetupPlan<Phantom> createPhantomSetup() {
+		return RaidGoalSetupPlan.<Phantom>builder()
+				.addGoal(1, entity -> new MoveTowardsNexusPhantomGoal(entity, getRaidManager()))
+				.build();
 	}
 
-	public void setupCaveSpiderGoals(CaveSpider entity) {
-		// remove unwanted goals
-		final List<Class<? extends Goal>> goalClassesToRemove = Arrays.asList(LookAtPlayerGoal.class, RandomLookAroundGoal.class);
-		removeGoalsFromList(entity, goalClassesToRemove);
-		removeTargetsFromList(entity, Arrays.asList(HurtByTargetGoal.class));
-
-		entity.goalSelector.addGoal(1, new MoveTowardsNexusGoal<>(entity, worldManager.getRaidManager()));
-		entity.goalSelector.addGoal(1, new AttackBlockMeleeGoal<>(entity, worldManager.getRaidManager()));
-		entity.targetSelector.addGoal(1, new HurtByNotRaidingTargetGoal(entity, worldManager.getRaidManager()));
-
-		entity.setPersistenceRequired();
+	private RaidGoalSetupPlan<ZombifiedPiglin> createZombifiedPiglinSetup() {
+		return RaidGoalSetupPlan.<ZombifiedPiglin>builder()
+				.removeAllGoals()
+				.removeAllTargets()
+				.addGoal(1, entity -> new RaidBrainGoal<>(entity, getRaidManager(),
+						new MoveTowardsNexusGoal<>(entity, getRaidManager()),
+						new AttackBlockMeleeGoal<>(entity, getRaidManager()),
+						new ZombieAttackGoal(entity, 1.0D, false))
+						.setAlertOthers(ZombifiedPiglin.class))
+				.build();
 	}
 
-	public void setupWitherSkeletonGoals(WitherSkeleton entity) {
-		// remove unwanted goals
-		final List<Class<? extends Goal>> goalClassesToRemove = Arrays.asList(LookAtPlayerGoal.class, RandomLookAroundGoal.class,
-				WaterAvoidingRandomStrollGoal.class);
-		removeGoalsFromList(entity, goalClassesToRemove);
-		removeTargetsFromList(entity, Arrays.asList(HurtByTargetGoal.class, NearestAttackableTargetGoal.class));
-
-		entity.goalSelector.addGoal(1, new MoveTowardsNexusGoal<>(entity, worldManager.getRaidManager()));
-		entity.goalSelector.addGoal(1, new AttackBlockMeleeGoal<>(entity, worldManager.getRaidManager()));
-		entity.targetSelector.addGoal(1, new HurtByNotRaidingTargetGoal(entity, worldManager.getRaidManager()));
-		entity.targetSelector.addGoal(2, new NearestAttackableTargetGoal<>(entity, Player.class, true));
-		entity.targetSelector.addGoal(3, new NearestAttackableTargetGoal<>(entity, IronGolem.class, true));
+	private RaidGoalSetupPlan<CaveSpider> createCaveSpiderSetup() {
+		// unlike the spider, the cave spider keeps swimming, so it does not sink in water
+		return RaidGoalSetupPlan.<CaveSpider>builder()
+				.removeAllGoals()
+				.removeAllTargets()
+				.addGoal(1, FloatGoal::new)
+				.addGoal(1, entity -> new RaidBrainGoal<>(entity, getRaidManager(),
+						new MoveTowardsNexusGoal<>(entity, getRaidManager()),
+						new AttackBlockMeleeGoal<>(entity, getRaidManager()),
+						createSpiderFightGoals(entity))
+						.targetPlayers()
+						.targetIronGolems()
+						.huntOnlyInDarkness())
+				.build();
+	}
 
-		entity.setPersistenceRequired();
+	private RaidGoalSetupPlan<WitherSkeleton> createWitherSkeletonSetup() {
+		return RaidGoalSetupPlan.<WitherSkeleton>builder()
+				.removeAllGoals()
+				.removeAllTargets()
+				.addGoal(1, entity -> new RaidBrainGoal<>(entity, getRaidManager(),
+						new MoveTowardsNexusGoal<>(entity, getRaidManager()),
+						new AttackBlockMeleeGoal<>(entity, getRaidManager()),
+						createSkeletonFightGoals(entity))
+						.targetPlayers()
+						.targetIronGolems())
+				.build();
 	}
 
 	/**
-	 * Removes the specified AI goals from the given entity.
-	 * 
-	 * @param entity              the entity from which to remove the goals
-	 * @param goalClassesToRemove a list of classes of the types of goals to remove
+	 * Creates the fight goals of a spider like the vanilla goals: it leaps at its
+	 * target and attacks it in melee.
 	 */
-	private void removeGoalsFromList(Mob entity, final List<Class<? extends Goal>> goalClassesToRemove) {
-		entity.goalSelector.getAvailableGoals().removeIf(goal -> goalClassesToRemove.contains(goal.getGoal().getClass()));
+	private static Goal[] createSpiderFightGoals(Spider entity) {
+		return new Goal[] { new LeapAtTargetGoal(entity, 0.4F), new MeleeAttackGoal(entity, 1.0D, true) };
 	}
 
 	/**
-	 * Removes the specified AI target goals from the given entity.
-	 * 
-	 * @param entity                the entity from which to remove the goals
-	 * @param targetClassesToRemove a list of classes of the types of goals to
-	 *                              remove
+	 * Creates the fight goals of a skeleton like
+	 * {@link AbstractSkeleton#reassessWeaponGoal()}: it shoots, while it holds a
+	 * bow, and attacks in melee otherwise. The vanilla weapon goals the skeleton
+	 * adds itself, when its equipment changes, have a lower priority than the
+	 * {@link RaidBrainGoal} and never run.
 	 */
-	private void removeTargetsFromList(Mob entity,
-			final List<Class<? extends TargetGoal>> targetClassesToRemove) {
-		entity.targetSelector.getAvailableGoals().removeIf(goal -> targetClassesToRemove.contains(goal.getGoal().getClass()));
+	private static Goal[] createSkeletonFightGoals(AbstractSkeleton entity) {
+		RangedBowAttackGoal<AbstractSkeleton> bowGoal = new RangedBowAttackGoal<>(entity, 1.0D, 20, 15.0F);
+		if (entity.level.getDifficulty() != Difficulty.HARD) {
+			bowGoal.setMinAttackInterval(40);
+		}
+		return new Goal[] { bowGoal, new MeleeAttackGoal(entity, 1.2D, false) };
 	}
 }
@@ -0,0 +1,63 @@
+package may.baseraids.entities;
+
+import java.util.UUID;
+
+import may.baseraids.Baseraids;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.ai.attributes.AttributeInstance;
+import net.minecraft.world.entity.ai.attributes.AttributeModifier;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+
+/**
+ * This class turns raid mobs into elite mobs. An elite mob stands in for
+ * several regular mobs of its type, which is called its weight. Its health and
+ * block breaking damage are multiplied by its weight, so that a raid with fewer
+ * but stronger mobs is roughly as difficult as the original raid.
+ * <p>
+ * The weight is stored in the persistent data of the mob, so that it survives
+ * saving and loading.
+ *
+ * @author Natascha May
+ */
+public class RaidEliteManager {
+
+	private static final String ELITE_WEIGHT_KEY = Baseraids.MODID + ":eliteWeight";
+	private static final UUID ELITE_HEALTH_MODIFIER_UUID = UUID.fromString("5f6e1c1a-8b0e-4c8e-9a43-3c2f0b6d7e21");
+
+	private RaidEliteManager() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Turns the given mob into an elite mob with the given weight. A weight of 1
+	 * or less leaves the mob unchanged.
+	 *
+	 * @param mob    the freshly spawned mob
+	 * @param weight the number of regular mobs this mob stands in for
+	 */
+	public static void makeElite(Mob mob, int weight) {
+		if (weight <= 1) {
+			return;
+		}
+		mob.getPersistentData().putInt(ELITE_WEIGHT_KEY, weight);
+
+		AttributeInstance maxHealth = mob.getAttribute(Attributes.MAX_HEALTH);
+		if (maxHealth != null && maxHealth.getModifier(ELITE_HEALTH_MODIFIER_UUID) == null) {
+			maxHealth.addPermanentModifier(new AttributeModifier(ELITE_HEALTH_MODIFIER_UUID, "Raid elite health",
+					weight - 1.0D, AttributeModifier.Operation.MULTIPLY_TOTAL));
+		}
+		mob.setHealth(mob.getMaxHealth());
+	}
+
+	/**
+	 * @param entity the entity to check, may be null
+	 * @return the number of regular mobs the given entity stands in for, at least 1
+	 */
+	public static int getEliteWeight(Entity entity) {
+		if (entity == null) {
+			return 1;
+		}
+		return Math.max(1, entity.getPersistentData().getInt(ELITE_WEIGHT_KEY));
+	}
+}
@@ -0,0 +1,160 @@
+package may.baseraids.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.ai.goal.Goal;
+import net.minecraft.world.entity.ai.goal.WrappedGoal;
+
+/**
+ * This class holds how the goals of one entity type are set up for raiding:
+ * which vanilla goals are removed and which raid goals are added. It is
+ * immutable and compiled once in
+ * {@link BaseraidsEntityManager#registerSetups()}, so that applying it to a
+ * spawned mob is a single pass over its goals.
+ *
+ * @author Natascha May
+ */
+public final class RaidGoalSetupPlan<T extends Mob> {
+
+	/** Matches all goals or the goals whose class is one of the goal classes to remove */
+	private final Predicate<WrappedGoal> goalsToRemove;
+	/** Matches all target goals or the target goals whose class is one of the target classes to remove */
+	private final Predicate<WrappedGoal> targetsToRemove;
+	private final int[] goalPriorities;
+	private final Function<T, Goal>[] goalFactories;
+	private final int[] targetPriorities;
+	private final Function<T, Goal>[] targetFactories;
+
+	private RaidGoalSetupPlan(Builder<T> builder) {
+		ReferenceOpenHashSet<Class<?>> goalClasses = new ReferenceOpenHashSet<>(builder.goalClassesToRemove);
+		ReferenceOpenHashSet<Class<?>> targetClasses = new ReferenceOpenHashSet<>(builder.targetClassesToRemove);
+		this.goalsToRemove = builder.removeAllGoals ? goal -> true
+				: goal -> goalClasses.contains(goal.getGoal().getClass());
+		this.targetsToRemove = builder.removeAllTargets ? goal -> true
+				: goal -> targetClasses.contains(goal.getGoal().getClass());
+		this.goalPriorities = builder.goalPriorities.stream().mapToInt(Integer::intValue).toArray();
+		this.goalFactories = toArray(builder.goalFactories);
+		this.targetPriorities = builder.targetPriorities.stream().mapToInt(Integer::intValue).toArray();
+		this.targetFactories = toArray(builder.targetFactories);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Mob> Function<T, Goal>[] toArray(List<Function<T, Goal>> factories) {
+		return factories.toArray(new Function[0]);
+	}
+
+	/**
+	 * Removes the unwanted goals of the given entity, adds the raid goals and
+	 * makes the entity persistent.
+	 *
+	 * @param entity the entity to set up
+	 */
+	public void apply(T entity) {
+		entity.goalSelector.getAvailableGoals().removeIf(goalsToRemove);
+		entity.targetSelector.getAvailableGoals().removeIf(targetsToRemove);
+
+		for (int i = 0; i < goalFactories.length; i++) {
+			entity.goalSelector.addGoal(goalPriorities[i], goalFactories[i].apply(entity));
+		}
+		for (int i = 0; i < targetFactories.length; i++) {
+			entity.targetSelector.addGoal(targetPriorities[i], targetFactories[i].apply(entity));
+		}
+
+		entity.setPersistenceRequired();
+	}
+
+	/**
+	 * @param <T> the class of the entities the plan is applied to
+	 * @return a builder for a new plan
+	 */
+	public static <T extends Mob> Builder<T> builder() {
+		return new Builder<>();
+	}
+
+	/**
+	 * Collects the parts of a {@link RaidGoalSetupPlan}.
+	 */
+	public static final class Builder<T extends Mob> {
+		private final List<Class<?>> goalClassesToRemove = new ArrayList<>();
+		private final List<Class<?>> targetClassesToRemove = new ArrayList<>();
+		private boolean removeAllGoals = false;
+		private boolean removeAllTargets = false;
+		private final List<Integer> goalPriorities = new ArrayList<>();
+		private final List<Function<T, Goal>> goalFactories = new ArrayList<>();
+		private final List<Integer> targetPriorities = new ArrayList<>();
+		private final List<Function<T, Goal>> targetFactories = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * @param goalClasses the classes of the goals to remove
+		 * @return this builder
+		 */
+		public Builder<T> removeGoals(Class<?>... goalClasses) {
+			goalClassesToRemove.addAll(List.of(goalClasses));
+			return this;
+		}
+
+		/**
+		 * @param targetClasses the classes of the target goals to remove
+		 * @return this builder
+		 */
+		public Builder<T> removeTargets(Class<?>... targetClasses) {
+			targetClassesToRemove.addAll(List.of(targetClasses));
+			return this;
+		}
+
+		/**
+		 * Removes all vanilla goals, e.g. because a {@link may.baseraids.entities.ai.goal.RaidBrainGoal}
+		 * replaces them.
+		 *
+		 * @return this builder
+		 */
+		public Builder<T> removeAllGoals() {
+			removeAllGoals = true;
+			return this;
+		}
+
+		/**
+		 * Removes all vanilla target goals.
+		 *
+		 * @return this builder
+		 */
+		public Builder<T> removeAllTargets() {
+			removeAllTargets = true;
+			return this;
+		}
+
+		/**
+		 * @param priority the priority of the goal
+		 * @param factory  creates the goal for an entity
+		 * @return this builder
+		 */
+		public Builder<T> addGoal(int priority, Function<T, Goal> factory) {
+			goalPriorities.add(priority);
+			goalFactories.add(factory);
+			return this;
+		}
+
+		/**
+		 * @param priority the priority of the target goal
+		 * @param factory  creates the target goal for an entity
+		 * @return this builder
+		 */
+		public Builder<T> addTarget(int priority, Function<T, Goal> factory) {
+			targetPriorities.add(priority);
+			targetFactories.add(factory);
+			return this;
+		}
+
+		public RaidGoalSetupPlan<T> build() {
+			return new RaidGoalSetupPlan<>(this);
+		}
+	}
+}
@@ -1,14 +1,14 @@
 package may.baseraids.entities;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.Mob;
 
-import may.baseraids.RaidSpawnCountPerWaveRegistry;
-
 public class RaidSpawnCountManager {
 
 	private static Map<EntityType<? extends Mob>, int[]> entitySpawnCountPerPlayerRegistry = new HashMap<>();
@@ -22,11 +22,6 @@ public class RaidSpawnCountManager {
 	private static final int[] SPAWN_COUNT_CAVE_SPIDERS = 		{0, 0, 0, 0, 0, 0, 1, 1, 2, 3};
 	
 	private static final int MAX_MOB_AMOUNT_PER_WAVE = 20;
-	/**
-	 * Given a wave number, returns a map that contains the count to spawn for each entity type.
-	 * The values must be registered at the start of each raid and emptied at the end of each raid with {@link registerSpawnCountsForLevelAndPlayerCount}.
-	 */
-	private static RaidSpawnCountPerWaveRegistry entitySpawnCountPerWaveRegistry = new RaidSpawnCountPerWaveRegistry();
 	
 	private RaidSpawnCountManager() {
 		throw new IllegalStateException("Utility class");
@@ -57,43 +52,34 @@ public class RaidSpawnCountManager {
 		return getSpawnCountForEntityAndLevel(type, level) * playerCount;
 	}
 	
-	public static void registerSpawnCountsForLevelAndPlayerCount(int level, int playerCount) {
-		Set<EntityType<? extends Mob>> entityTypesToSpawn = RaidSpawnCountManager.getEntityTypesToSpawn();
-		var totalMobsToSpawn = new HashMap<EntityType<? extends Mob>, Integer>();
-		entityTypesToSpawn.forEach(t -> {
-			int count = RaidSpawnCountManager.getSpawnCountForEntityAndLevelAndPlayerCount(t, level,
-					playerCount);
-			totalMobsToSpawn.put(t, count);
-		});
-		
+	/**
+	 * Compiles the {@link RaidWavePlan} for a raid with the given level and
+	 * number of players. The mobs are split into waves of roughly
+	 * {@link #MAX_MOB_AMOUNT_PER_WAVE} mobs.
+	 * 
+	 * @param level       the raid level
+	 * @param playerCount the number of players
+	 * @return the immutable wave plan for the raid
+	 */
+	public static RaidWavePlan createWavePlanForLevelAndPlayerCount(int level, int playerCount) {
+		List<EntityType<? extends Mob>> entityTypesToSpawn = new ArrayList<>(getEntityTypesToSpawn());
+		int[] totalMobsToSpawn = new int[entityTypesToSpawn.size()];
 		int totalMobCount = 0;
-		for(var val : totalMobsToSpawn.values()){
-			totalMobCount += val;
+		for (int typeIndex = 0; typeIndex < entityTypesToSpawn.size(); typeIndex++) {
+			totalMobsToSpawn[typeIndex] = getSpawnCountForEntityAndLevelAndPlayerCount(
+					entityTypesToSpawn.get(typeIndex), level, playerCount);
+			totalMobCount += totalMobsToSpawn[typeIndex];
 		}
 		
 		int numOfWaves = totalMobCount / MAX_MOB_AMOUNT_PER_WAVE + 1;
-		for(var t : entityTypesToSpawn) {
-			for(int i = 1; i < numOfWaves; i++) {
-				int count = totalMobsToSpawn.get(t) / numOfWaves;
-				entitySpawnCountPerWaveRegistry.put(i, t, count);
+		int[][] counts = new int[numOfWaves][entityTypesToSpawn.size()];
+		for (int typeIndex = 0; typeIndex < entityTypesToSpawn.size(); typeIndex++) {
+			for (int wave = 0; wave < numOfWaves - 1; wave++) {
+				counts[wave][typeIndex] = totalMobsToSpawn[typeIndex] / numOfWaves;
 			}
-			int count = totalMobsToSpawn.get(t) % numOfWaves;
-			entitySpawnCountPerWaveRegistry.put(numOfWaves, t, count);
-		}				
-	}
-	
-	/**
-	 * Gets the amount of mobs to spawn for the given entity type and wave number that is registered in {@link RaidSpawnCountManager#entitySpawnCountPerWaveRegistry}.
-	 * @param type
-	 * @param wave
-	 * @return The amount of mobs to spawn or null if there is none registered for the type and wave
-	 */
-	public static Integer getSpawnCountForEntityAndWave(EntityType<?> type, int wave) {		
-		return entitySpawnCountPerWaveRegistry.get(wave).get(type);
-	}
-	
-	public static int getMaxWave() {
-		return entitySpawnCountPerWaveRegistry.getMaxWave();
+			counts[numOfWaves - 1][typeIndex] = totalMobsToSpawn[typeIndex] % numOfWaves;
+		}
+		return new RaidWavePlan(entityTypesToSpawn, counts);
 	}
 
 }
@@ -0,0 +1,93 @@
+package may.baseraids.entities;
+
+import java.util.List;
+
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+
+/**
+ * This class holds the number of mobs to spawn per wave and entity type for one
+ * raid. It is immutable and compiled once at the start of a raid using
+ * {@link RaidSpawnCountManager#createWavePlanForLevelAndPlayerCount(int, int)},
+ * so that all queries during the raid are simple array or field reads.
+ *
+ * @author Natascha May
+ */
+public final class RaidWavePlan {
+
+	/** A plan without any waves, used while no raid was planned yet */
+	public static final RaidWavePlan EMPTY = new RaidWavePlan(List.of(), new int[0][0]);
+
+	private final List<EntityType<? extends Mob>> entityTypes;
+	/** The count to spawn indexed by {@code [wave - 1][entity type index]} */
+	private final int[][] counts;
+	private final int[] totalCountPerWave;
+	private final int totalCount;
+	private final int maxWave;
+
+	/**
+	 * @param entityTypes the entity types, their index in this list is the type
+	 *                    index used in {@code counts}
+	 * @param counts      the count to spawn indexed by
+	 *                    {@code [wave - 1][entity type index]}. The array is not
+	 *                    copied and must not be changed afterwards.
+	 */
+	RaidWavePlan(List<EntityType<? extends Mob>> entityTypes, int[][] counts) {
+		this.entityTypes = List.copyOf(entityTypes);
+		this.counts = counts;
+		this.maxWave = counts.length;
+		this.totalCountPerWave = new int[maxWave];
+		int total = 0;
+		for (int wave = 0; wave < maxWave; wave++) {
+			for (int count : counts[wave]) {
+				totalCountPerWave[wave] += count;
+			}
+			total += totalCountPerWave[wave];
+		}
+		this.totalCount = total;
+	}
+
+	public int getMaxWave() {
+		return maxWave;
+	}
+
+	public int getEntityTypeCount() {
+		return entityTypes.size();
+	}
+
+	public EntityType<? extends Mob> getEntityType(int typeIndex) {
+		return entityTypes.get(typeIndex);
+	}
+
+	/**
+	 * @param wave      the wave number starting at 1
+	 * @param typeIndex the index of the entity type
+	 * @return the number of mobs of the entity type to spawn in the given wave or
+	 *         0, if the wave is not part of this plan
+	 */
+	public int getCount(int wave, int typeIndex) {
+		if (wave < 1 || wave > maxWave) {
+			return 0;
+		}
+		return counts[wave - 1][typeIndex];
+	}
+
+	/**
+	 * @param wave the wave number starting at 1
+	 * @return the number of mobs to spawn in the given wave or 0, if the wave is
+	 *         not part of this plan
+	 */
+	public int getTotalCountForWave(int wave) {
+		if (wave < 1 || wave > maxWave) {
+			return 0;
+		}
+		return totalCountPerWave[wave - 1];
+	}
+
+	/**
+	 * @return the number of mobs to spawn in all waves
+	 */
+	public int getTotalCount() {
+		return totalCount;
+	}
+}
@@ -0,0 +1,176 @@
+package may.baseraids.entities.ai;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+/**
+ * This class stores the breaking progress of all damaged blocks. The blocks
+ * are keyed by their packed position, see
+ * {@link net.minecraft.core.BlockPos#asLong()}, in a primitive map that points
+ * to an index into parallel arrays holding the progress of each block. Thus, a
+ * damaged block costs a few array entries instead of several objects.
+ * <p>
+ * Each block gets a breaker id for
+ * {@link net.minecraft.world.level.Level#destroyBlockProgress(int, net.minecraft.core.BlockPos, int)}.
+ * The ids are negative, so they do not collide with the ids of entities
+ * breaking blocks, and they are reused after a block was reset.
+ * <p>
+ * This class is not thread-safe. It is only used on the server thread.
+ *
+ * @author Natascha May
+ */
+class BlockBreakProgressStore {
+
+	private static final int INITIAL_CAPACITY = 64;
+	/** The first breaker id, -1 is left out since it is used for the nexus */
+	private static final int FIRST_BREAKER_ID = -2;
+
+	/** Maps the packed position of a block to its index in the arrays */
+	private final Long2IntOpenHashMap indexByPos = new Long2IntOpenHashMap();
+	private long[] positions = new long[INITIAL_CAPACITY];
+	/** The summed up damage that has been added to each block */
+	private int[] progress = new int[INITIAL_CAPACITY];
+	/** The progress of each block relative to its damage to break in tenths */
+	private int[] relativeProgress = new int[INITIAL_CAPACITY];
+	/** The damage it takes for each block to break */
+	private int[] damageToBreak = new int[INITIAL_CAPACITY];
+	private int[] breakerIds = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
+	private final IntArrayList freeBreakerIds = new IntArrayList();
+	private int nextBreakerId = FIRST_BREAKER_ID;
+
+	BlockBreakProgressStore() {
+		indexByPos.defaultReturnValue(-1);
+	}
+
+	/**
+	 * @param pos the packed position of the block
+	 * @return the index of the block or -1, if the block is not damaged
+	 */
+	int indexOf(long pos) {
+		return indexByPos.get(pos);
+	}
+
+	/**
+	 * Adds a block without progress and assigns a breaker id to it.
+	 *
+	 * @param pos           the packed position of the block
+	 * @param damageToBreak the damage it takes for the block to break
+	 * @return the index of the block
+	 */
+	int add(long pos, int damageToBreak) {
+		if (size == positions.length) {
+			grow();
+		}
+		int index = size++;
+		positions[index] = pos;
+		progress[index] = 0;
+		relativeProgress[index] = 0;
+		this.damageToBreak[index] = damageToBreak;
+		breakerIds[index] = freeBreakerIds.isEmpty() ? nextBreakerId-- : freeBreakerIds.popInt();
+		indexByPos.put(pos, index);
+		return index;
+	}
+
+	/**
+	 * Removes the block at the given index and frees its breaker id. The last
+	 * block is moved to the given index.
+	 *
+	 * @param index the index of the block
+	 */
+	void remove(int index) {
+		indexByPos.remove(positions[index]);
+		freeBreakerIds.add(breakerIds[index]);
+		int last = --size;
+		if (index != last) {
+			positions[index] = positions[last];
+			progress[index] = progress[last];
+			relativeProgress[index] = relativeProgress[last];
+			damageToBreak[index] = damageToBreak[last];
+			breakerIds[index] = breakerIds[last];
+			indexByPos.put(positions[index], index);
+		}
+	}
+
+	/**
+	 * Removes all blocks and frees all breaker ids.
+	 */
+	void clear() {
+		indexByPos.clear();
+		size = 0;
+		freeBreakerIds.clear();
+		nextBreakerId = FIRST_BREAKER_ID;
+	}
+
+	int size() {
+		return size;
+	}
+
+	long getPos(int index) {
+		return positions[index];
+	}
+
+	int getProgress(int index) {
+		return progress[index];
+	}
+
+	void setProgress(int index, int value) {
+		progress[index] = value;
+	}
+
+	int getRelativeProgress(int index) {
+		return relativeProgress[index];
+	}
+
+	void setRelativeProgress(int index, int value) {
+		relativeProgress[index] = value;
+	}
+
+	int getDamageToBreak(int index) {
+		return damageToBreak[index];
+	}
+
+	int getBreakerId(int index) {
+		return breakerIds[index];
+	}
+
+	private void grow() {
+		int capacity = positions.length * 2;
+		positions = Arrays.copyOf(positions, capacity);
+		progress = Arrays.copyOf(progress, capacity);
+		relativeProgress = Arrays.copyOf(relativeProgress, capacity);
+		damageToBreak = Arrays.copyOf(damageToBreak, capacity);
+		breakerIds = Arrays.copyOf(breakerIds, capacity);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = size;
+		for (int i = 0; i < size; i++) {
+			result += Long.hashCode(positions[i]) ^ progress[i];
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BlockBreakProgressStore other = (BlockBreakProgressStore) obj;
+		if (size != other.size)
+			return false;
+		for (int i = 0; i < size; i++) {
+			int otherIndex = other.indexOf(positions[i]);
+			if (otherIndex < 0 || progress[i] != other.progress[otherIndex])
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,213 @@
+package may.baseraids.entities.ai;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import may.baseraids.config.ConfigOptions;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.protocol.game.ClientboundBlockDestructionPacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+
+/**
+ * This class sends the crack overlays of the damaged blocks in a
+ * {@link BlockBreakProgressStore} to the players. Each player only gets the
+ * overlays of the blocks within {@link ConfigOptions#getCrackOverlayDistance()}
+ * and at most {@link ConfigOptions#getMaxCrackOverlaysPerPlayer()} of them,
+ * preferring the blocks that are closest to breaking.
+ * <p>
+ * The overlays shown to each player are reselected every
+ * {@link #RESELECT_INTERVAL} ticks, e.g. when the player moved closer to
+ * other blocks. In between, only the progress of the shown overlays is
+ * updated, once per tick and block.
+ *
+ * @author Natascha May
+ */
+class BlockCrackOverlays {
+
+	/** The number of ticks after which the overlays of each player are reselected */
+	private static final int RESELECT_INTERVAL = 10;
+
+	private final Level level;
+	private final BlockBreakProgressStore breakProgress;
+
+	/** The overlays shown to each player */
+	private final Map<ServerPlayer, ShownOverlays> shownOverlays = new IdentityHashMap<>();
+	/** The packed positions of the blocks whose overlay changed in this tick */
+	private final LongOpenHashSet changedBlocks = new LongOpenHashSet();
+	private int ticksSinceReselect = 0;
+
+	/** Reused by {@link #reselect(ServerPlayer, ShownOverlays)} */
+	private final IntArrayList candidates = new IntArrayList();
+	private final IntOpenHashSet selectedIds = new IntOpenHashSet();
+
+	BlockCrackOverlays(Level level, BlockBreakProgressStore breakProgress) {
+		this.level = level;
+		this.breakProgress = breakProgress;
+	}
+
+	/**
+	 * Marks the overlay of the given block to be sent at the end of the tick.
+	 *
+	 * @param pos the packed position of the block
+	 */
+	void markChanged(long pos) {
+		changedBlocks.add(pos);
+	}
+
+	/**
+	 * Sends the changed overlays to the players that see them and reselects the
+	 * overlays of all players, if the interval passed.
+	 */
+	void tick() {
+		shownOverlays.keySet().removeIf(player -> player.isRemoved() || player.level != level);
+
+		if (++ticksSinceReselect >= RESELECT_INTERVAL) {
+			ticksSinceReselect = 0;
+			for (ServerPlayer player : ((ServerLevel) level).players()) {
+				reselect(player, shownOverlays.computeIfAbsent(player, p -> new ShownOverlays()));
+			}
+			changedBlocks.clear();
+			return;
+		}
+
+		if (changedBlocks.isEmpty() || shownOverlays.isEmpty()) {
+			changedBlocks.clear();
+			return;
+		}
+		LongIterator iterator = changedBlocks.iterator();
+		while (iterator.hasNext()) {
+			int index = breakProgress.indexOf(iterator.nextLong());
+			if (index < 0) {
+				continue;
+			}
+			int breakerId = breakProgress.getBreakerId(index);
+			for (Map.Entry<ServerPlayer, ShownOverlays> entry : shownOverlays.entrySet()) {
+				ShownOverlays shown = entry.getValue();
+				if (shown.progressById.containsKey(breakerId)) {
+					send(entry.getKey(), shown, breakerId, breakProgress.getPos(index),
+							breakProgress.getRelativeProgress(index));
+				}
+			}
+		}
+		changedBlocks.clear();
+	}
+
+	/**
+	 * Removes the overlay with the given breaker id from all players that see it.
+	 *
+	 * @param breakerId the breaker id of the overlay
+	 * @param pos       the packed position of the block
+	 */
+	void remove(int breakerId, long pos) {
+		changedBlocks.remove(pos);
+		for (Map.Entry<ServerPlayer, ShownOverlays> entry : shownOverlays.entrySet()) {
+			ShownOverlays shown = entry.getValue();
+			if (shown.progressById.containsKey(breakerId)) {
+				hide(entry.getKey(), shown, breakerId);
+			}
+		}
+	}
+
+	/**
+	 * Removes all overlays from all players.
+	 */
+	void clear() {
+		for (Map.Entry<ServerPlayer, ShownOverlays> entry : shownOverlays.entrySet()) {
+			ShownOverlays shown = entry.getValue();
+			IntArrayList ids = new IntArrayList(shown.progressById.keySet());
+			for (int i = 0; i < ids.size(); i++) {
+				hide(entry.getKey(), shown, ids.getInt(i));
+			}
+		}
+		shownOverlays.clear();
+		changedBlocks.clear();
+	}
+
+	/**
+	 * Selects the overlays the given player should see, hides the overlays that
+	 * were not selected again and sends the selected ones that changed.
+	 */
+	private void reselect(ServerPlayer player, ShownOverlays shown) {
+		double maxDistance = ConfigOptions.getCrackOverlayDistance();
+		double maxDistanceSqr = maxDistance * maxDistance;
+		candidates.clear();
+		for (int i = 0; i < breakProgress.size(); i++) {
+			if (breakProgress.getRelativeProgress(i) > 0 && distanceSqr(player, i) <= maxDistanceSqr) {
+				candidates.add(i);
+			}
+		}
+		// the blocks closest to breaking first, then the closest blocks
+		IntArrays.quickSort(candidates.elements(), 0, candidates.size(), (a, b) -> {
+			int byProgress = Integer.compare(breakProgress.getRelativeProgress(b), breakProgress.getRelativeProgress(a));
+			return byProgress != 0 ? byProgress : Double.compare(distanceSqr(player, a), distanceSqr(player, b));
+		});
+
+		int selectedCount = Math.min(candidates.size(), ConfigOptions.getMaxCrackOverlaysPerPlayer());
+		selectedIds.clear();
+		for (int i = 0; i < selectedCount; i++) {
+			selectedIds.add(breakProgress.getBreakerId(candidates.getInt(i)));
+		}
+
+		ObjectIterator<Int2IntMap.Entry> iterator = shown.progressById.int2IntEntrySet().fastIterator();
+		while (iterator.hasNext()) {
+			int breakerId = iterator.next().getIntKey();
+			if (!selectedIds.contains(breakerId)) {
+				player.connection.send(new ClientboundBlockDestructionPacket(breakerId,
+						BlockPos.of(shown.posById.remove(breakerId)), -1));
+				iterator.remove();
+			}
+		}
+		for (int i = 0; i < selectedCount; i++) {
+			int index = candidates.getInt(i);
+			send(player, shown, breakProgress.getBreakerId(index), breakProgress.getPos(index),
+					breakProgress.getRelativeProgress(index));
+		}
+	}
+
+	private double distanceSqr(ServerPlayer player, int index) {
+		long pos = breakProgress.getPos(index);
+		return player.distanceToSqr(BlockPos.getX(pos) + 0.5D, BlockPos.getY(pos) + 0.5D, BlockPos.getZ(pos) + 0.5D);
+	}
+
+	/**
+	 * Sends the overlay to the player, if the player does not see this progress
+	 * already.
+	 */
+	private static void send(ServerPlayer player, ShownOverlays shown, int breakerId, long pos, int progress) {
+		if (shown.progressById.get(breakerId) == progress) {
+			return;
+		}
+		shown.progressById.put(breakerId, progress);
+		shown.posById.put(breakerId, pos);
+		player.connection.send(new ClientboundBlockDestructionPacket(breakerId, BlockPos.of(pos), progress));
+	}
+
+	private static void hide(ServerPlayer player, ShownOverlays shown, int breakerId) {
+		shown.progressById.remove(breakerId);
+		long pos = shown.posById.remove(breakerId);
+		player.connection.send(new ClientboundBlockDestructionPacket(breakerId, BlockPos.of(pos), -1));
+	}
+
+	/**
+	 * The overlays shown to one player by their breaker id.
+	 */
+	private static class ShownOverlays {
+		private final Int2IntOpenHashMap progressById = new Int2IntOpenHashMap();
+		private final Int2LongOpenHashMap posById = new Int2LongOpenHashMap();
+
+		private ShownOverlays() {
+			progressById.defaultReturnValue(-1);
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package may.baseraids.entities.ai;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import may.baseraids.Baseraids;
+import may.baseraids.config.ConfigOptions;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
+import net.minecraft.tags.TagKey;
+import net.minecraft.util.GsonHelper;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.event.config.ModConfigEvent;
+import net.minecraftforge.registries.ForgeRegistries;
+
+/**
+ * This class holds the damage it takes the raid mobs to break each block
+ * state. The damage of all registered block states is computed once into an
+ * array indexed by the id of the block state. The table is rebuilt when the
+ * server starts and after the config or the datapacks were reloaded.
+ * <p>
+ * Datapacks can override the toughness of blocks with JSON files in
+ * {@code data/<namespace>/block_toughness/}. Each file contains an object
+ * {@code values} that maps block ids or block tags, prefixed with {@code #}, to
+ * the damage required to break them, e.g.
+ * {@code {"values": {"minecraft:obsidian": 2000, "#minecraft:walls": 800}}}.
+ * Block ids take precedence over tags. This mod overrides the blocks in the
+ * block tag {@code baseraids:reinforced}, which is empty by default. Like the
+ * computed values, the overrides are multiplied by
+ * {@link ConfigOptions#getMonsterBlockBreakingTimeMultiplier()}.
+ *
+ * @author Natascha May
+ */
+public class BlockToughnessTable extends SimpleJsonResourceReloadListener {
+
+	private static final Gson GSON = new GsonBuilder().create();
+	private static final String DIRECTORY = "block_toughness";
+
+	/** The damage to break each block state indexed by the id of the state */
+	private int[] damageToBreak = new int[0];
+	/** Set when the config, the datapacks or the tags changed */
+	private volatile boolean isOutdated = true;
+
+	private Map<ResourceLocation, Integer> blockOverrides = Map.of();
+	private Map<TagKey<Block>, Integer> tagOverrides = Map.of();
+
+	public BlockToughnessTable() {
+		super(GSON, DIRECTORY);
+		MinecraftForge.EVENT_BUS.register(this);
+	}
+
+	/**
+	 * @param state the block state
+	 * @return the damage required to break the given block state
+	 */
+	public int getDamageToBreak(BlockState state) {
+		if (isOutdated) {
+			rebuild();
+		}
+		int id = Block.BLOCK_STATE_REGISTRY.getId(state);
+		if (id < 0 || id >= damageToBreak.length) {
+			return computeDamageToBreak(state, ConfigOptions.getMonsterBlockBreakingTimeMultiplier());
+		}
+		return damageToBreak[id];
+	}
+
+	/**
+	 * Computes the damage to break every registered block state.
+	 */
+	private void rebuild() {
+		isOutdated = false;
+		int multiplier = ConfigOptions.getMonsterBlockBreakingTimeMultiplier();
+		int[] table = new int[Block.BLOCK_STATE_REGISTRY.size()];
+		for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+			table[Block.BLOCK_STATE_REGISTRY.getId(state)] = computeDamageToBreak(state, multiplier);
+		}
+		damageToBreak = table;
+		Baseraids.LOGGER.debug("Built block toughness table for {} block states", table.length);
+	}
+
+	/**
+	 * Computes the damage that is required to break the block state. If it is not
+	 * overridden, the damage is based on a formula that considers the hardness of
+	 * the block non-linearly.
+	 *
+	 * @param state      the block state
+	 * @param multiplier the multiplier from the config
+	 * @return the damage required to break the block state, at least 1
+	 */
+	private int computeDamageToBreak(BlockState state, int multiplier) {
+		Integer override = blockOverrides.get(ForgeRegistries.BLOCKS.getKey(state.getBlock()));
+		if (override == null) {
+			for (Map.Entry<TagKey<Block>, Integer> entry : tagOverrides.entrySet()) {
+				if (state.is(entry.getKey())) {
+					override = entry.getValue();
+					break;
+				}
+			}
+		}
+		if (override != null) {
+			return Math.max(1, multiplier * override);
+		}
+
+		float hardness = state.getBlock().defaultDestroyTime();
+		// the progress is divided by this, so it must never be 0
+		return Math.max(1, multiplier * (int) Math.round(
+				3 * (hardness + 80 * Math.log10(hardness + 1)) - 60 * Math.exp(-Math.pow(hardness - 2.5, 2) / 6) + 50));
+	}
+
+	/**
+	 * Reads the overrides from the JSON files of the datapacks. Values below 1
+	 * are skipped with a warning.
+	 */
+	@Override
+	protected void apply(Map<ResourceLocation, JsonElement> files, ResourceManager resourceManager,
+			ProfilerFiller profiler) {
+		Map<ResourceLocation, Integer> newBlockOverrides = new HashMap<>();
+		Map<TagKey<Block>, Integer> newTagOverrides = new LinkedHashMap<>();
+		files.forEach((fileId, json) -> {
+			try {
+				JsonObject values = GsonHelper.getAsJsonObject(GsonHelper.convertToJsonObject(json, "root"), "values");
+				for (Map.Entry<String, JsonElement> entry : values.entrySet()) {
+					int damage = GsonHelper.convertToInt(entry.getValue(), entry.getKey());
+					String key = entry.getKey();
+					if (damage < 1) {
+						Baseraids.LOGGER.warn("Skipping block toughness {} of {} in file {}: the value must be at least 1",
+								damage, key, fileId);
+						continue;
+					}
+					if (key.startsWith("#")) {
+						newTagOverrides.put(TagKey.create(Registries.BLOCK, new ResourceLocation(key.substring(1))),
+								damage);
+					} else {
+						newBlockOverrides.put(new ResourceLocation(key), damage);
+					}
+				}
+			} catch (RuntimeException e) {
+				Baseraids.LOGGER.warn("Could not read block toughness file {}: {}", fileId, e.getMessage());
+			}
+		});
+		blockOverrides = newBlockOverrides;
+		tagOverrides = newTagOverrides;
+		isOutdated = true;
+	}
+
+	@SubscribeEvent
+	public void onAddReloadListener(final AddReloadListenerEvent event) {
+		event.addListener(this);
+	}
+
+	/**
+	 * Rebuilds the table after the tags were bound, e.g. after the datapacks were
+	 * reloaded.
+	 *
+	 * @param event the event of type {@link TagsUpdatedEvent} that triggers this
+	 *              function
+	 */
+	@SubscribeEvent
+	public void onTagsUpdated(final TagsUpdatedEvent event) {
+		isOutdated = true;
+	}
+
+	@SubscribeEvent
+	public void onServerStarted(final ServerStartedEvent event) {
+		rebuild();
+	}
+
+	/**
+	 * Rebuilds the table after the config was reloaded. This is registered on the
+	 * mod event bus.
+	 *
+	 * @param event the event of type {@link ModConfigEvent} that triggers this
+	 *              function
+	 */
+	public void onConfigChanged(final ModConfigEvent event) {
+		if (event.getConfig().getModId().equals(Baseraids.MODID)) {
+			isOutdated = true;
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package may.baseraids.entities.ai;
 
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.jline.utils.Log;
 
@@ -17,12 +16,15 @@ import net.minecraft.nbt.ListTag;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.SoundType;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.level.BlockEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 
 /**
  * This class collects and manages all information on breaking blocks during a
- * raid.
+ * raid. The progress of the damaged blocks is kept in a
+ * {@link BlockBreakProgressStore}. Like all raid logic, this class is only used
+ * on the server thread.
  * 
  * @author Natascha May
  */
@@ -31,15 +33,17 @@ public class GlobalBlockBreakProgressManager {
 	private RaidManager raidManager;
 	private Level level;
 
-	/**
-	 * Holds the {@link BlockBreakProgressManager} for each block that has been
-	 * damaged.
-	 */
-	private ConcurrentHashMap<BlockPos, BlockBreakProgressManager> breakProgress = new ConcurrentHashMap<>();
+	/** Holds the progress of each block that has been damaged */
+	private final BlockBreakProgressStore breakProgress = new BlockBreakProgressStore();
+	/** Sends the crack overlays of the damaged blocks to the players */
+	private final BlockCrackOverlays crackOverlays;
+	/** Reused by {@link #addProgress(long, int)} for the block lookups */
+	private final BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
 
 	public GlobalBlockBreakProgressManager(RaidManager raidManager, Level level) {
 		this.level = level;
 		this.raidManager = raidManager;
+		this.crackOverlays = new BlockCrackOverlays(level, breakProgress);
 		// Register ourselves for server and other game events we are interested in
 		MinecraftForge.EVENT_BUS.register(this);
 	}
@@ -52,22 +56,95 @@ public class GlobalBlockBreakProgressManager {
 	 * @return returns true, if the block at BlockPos was removed/broken
 	 */
 	public boolean addProgress(BlockPos pos, int damage) {
-		BlockBreakProgressManager mng = breakProgress.computeIfAbsent(pos,
-				p -> new BlockBreakProgressManager(level, pos, breakProgress.size()));
-		if (mng.addProgress(damage)) {
-			breakBlock(pos);
+		return addProgress(pos.asLong(), damage);
+	}
+
+	/**
+	 * Adds breaking progress to the block at the given packed position. Unless the
+	 * block breaks, this does not allocate any objects.
+	 * 
+	 * @param pos    the packed position of the block, see {@link BlockPos#asLong()}
+	 * @param damage the amount of absolute damage made by the attack
+	 * @return returns true, if the block at the position was removed/broken
+	 */
+	public boolean addProgress(long pos, int damage) {
+		BlockPos blockPos = mutablePos.set(pos);
+		int index = breakProgress.indexOf(pos);
+		if (index < 0) {
+			index = breakProgress.add(pos, computeDamageToBreakBlock(level, blockPos));
+		}
+		int progress = breakProgress.getProgress(index) + damage;
+		breakProgress.setProgress(index, progress);
+		updateRelativeProgress(blockPos, index);
+
+		if (progress >= breakProgress.getDamageToBreak(index)) {
+			breakBlock(blockPos.immutable());
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Updates the relative progress of the block, if enough damage has been made.
+	 * The crack overlay of the block is then sent to the players at the end of the
+	 * tick by {@link #onLevelTickSendCrackOverlays(TickEvent.LevelTickEvent)}.
+	 * 
+	 * @param pos   the position of the block
+	 * @param index the index of the block in {@link #breakProgress}
+	 */
+	private void updateRelativeProgress(BlockPos pos, int index) {
+		// note that this divides two integers which results in a "rounded down" integer
+		// and requires the correct order of computation
+		int relativeProgress = breakProgress.getProgress(index) * 10 / breakProgress.getDamageToBreak(index);
+		if (relativeProgress == breakProgress.getRelativeProgress(index)) {
+			return;
+		}
+		breakProgress.setRelativeProgress(index, relativeProgress);
+
+		SoundType soundtype = level.getBlockState(pos).getSoundType(level, pos, null);
+		raidManager.soundMixer.play(pos, soundtype.getHitSound(), SoundSource.BLOCKS, soundtype.getVolume() * 2.0F, soundtype.getPitch() * 0.5F);
+
+		crackOverlays.markChanged(pos.asLong());
+	}
+
+	/**
+	 * Sends the crack overlays of the blocks whose relative progress changed in
+	 * this tick. Each block is sent once, no matter how often it was hit, and
+	 * only to the players that see its overlay, see {@link BlockCrackOverlays}.
+	 * 
+	 * @param event the event of type {@link TickEvent.LevelTickEvent} that
+	 *              triggers this method
+	 */
+	@SubscribeEvent
+	public void onLevelTickSendCrackOverlays(final TickEvent.LevelTickEvent event) {
+		if (event.phase != TickEvent.Phase.END || event.level != level) {
+			return;
+		}
+		crackOverlays.tick();
+	}
+
+	/**
+	 * Gets the damage that is required to break the block from the
+	 * {@link BlockToughnessTable}. The nexus has a fixed toughness.
+	 * 
+	 * @param level the level of the block
+	 * @param pos   the position of the block
+	 * @return the damage required to break the block
+	 */
+	public static int computeDamageToBreakBlock(Level level, BlockPos pos) {
+		if (NexusBlock.getBlockPos().equals(pos)) {
+			return 500;
+		}
+		return Baseraids.blockToughnessTable.getDamageToBreak(level.getBlockState(pos));
+	}
+
 	/**
 	 * Breaks a given block by removing it and resetting all relevant parameters for
 	 * this block. If the block was the nexus, it initiates the loss of the raid.
 	 * 
 	 * @param pos the position of the block
 	 */
-	private synchronized void breakBlock(BlockPos pos) {
+	private void breakBlock(BlockPos pos) {
 		if (!raidManager.isRaidActive()) {
 			return;
 		}
@@ -75,20 +152,22 @@ public class GlobalBlockBreakProgressManager {
 		resetProgress(pos);
 
         SoundType soundtype = level.getBlockState(pos).getSoundType(level, pos, null);
-        level.playSound(null, pos, soundtype.getBreakSound(), SoundSource.BLOCKS, soundtype.getVolume() * 2.0F, soundtype.getPitch() * 0.8F);        
+        raidManager.soundMixer.play(pos, soundtype.getBreakSound(), SoundSource.BLOCKS, soundtype.getVolume() * 2.0F, soundtype.getPitch() * 0.8F);        
 		
 		if (NexusBlock.getBlockPos().equals(pos)) {
 			raidManager.loseRaid();
 			return;
 		}
 		level.removeBlock(pos, false);
+		raidManager.nexusFlowField.markBlockChanged(pos);
+		raidManager.siegePlanner.requestReplan();
 	}
 
 	/**
 	 * Resets all progress and parameters that are recorded by this class.
 	 */
-	public synchronized void resetAllProgress() {
-		breakProgress.forEach(0, (k, v) -> level.destroyBlockProgress(v.breakBlockId, k, -1));
+	public void resetAllProgress() {
+		crackOverlays.clear();
 		breakProgress.clear();
 	}
 
@@ -97,11 +176,11 @@ public class GlobalBlockBreakProgressManager {
 	 * 
 	 * @param pos the position of the block
 	 */
-	public synchronized void resetProgress(BlockPos pos) {
-		BlockBreakProgressManager mng = breakProgress.get(pos);
-		if (mng != null) {
-			level.destroyBlockProgress(mng.breakBlockId, pos, -1);
-			breakProgress.remove(pos);
+	public void resetProgress(BlockPos pos) {
+		int index = breakProgress.indexOf(pos.asLong());
+		if (index >= 0) {
+			crackOverlays.remove(breakProgress.getBreakerId(index), pos.asLong());
+			breakProgress.remove(index);
 		}
 	}
 
@@ -166,12 +245,17 @@ public class GlobalBlockBreakProgressManager {
 		CompoundTag nbt = new CompoundTag();
 		
 		ListTag breakProgressList = new ListTag();
-		breakProgress.forEach((key, value) -> {
+		for (int i = 0; i < breakProgress.size(); i++) {
+			CompoundTag progressNBT = new CompoundTag();
+			progressNBT.putInt("breakProgressAbsolute", breakProgress.getProgress(i));
+			progressNBT.putInt("breakProgressRelative", breakProgress.getRelativeProgress(i));
+			progressNBT.putInt("breakBlockId", breakProgress.getBreakerId(i));
+
 			CompoundTag keyValuePairNBT = new CompoundTag();
-			keyValuePairNBT.put("BlockPos", NbtUtils.writeBlockPos(key));
-			keyValuePairNBT.put("BlockBreakProgressManager", value.write());
+			keyValuePairNBT.put("BlockPos", NbtUtils.writeBlockPos(BlockPos.of(breakProgress.getPos(i))));
+			keyValuePairNBT.put("BlockBreakProgressManager", progressNBT);
 			breakProgressList.add(keyValuePairNBT);
-		});		
+		}
 		
 		nbt.put("breakProgress", breakProgressList);
 		return nbt;
@@ -180,7 +264,8 @@ public class GlobalBlockBreakProgressManager {
 	/**
 	 * Reads the data stored in the given {@link CompoundTag}. This function
 	 * assumes that the nbt was previously written by this class or to be precise,
-	 * that the nbt includes certain elements.
+	 * that the nbt includes certain elements. The saved breaker ids are not
+	 * restored, the blocks get new ids instead.
 	 * 
 	 * @param nbt         the nbt that will be read out. It is assumed to include
 	 *                    certain elements.
@@ -190,14 +275,14 @@ public class GlobalBlockBreakProgressManager {
 		try {
 			breakProgress.clear();
 			ListTag breakProgressList = nbt.getList("breakProgress", 10);
-			breakProgressList.forEach(c -> {
-				CompoundTag com = (CompoundTag) c;
-				BlockPos key = NbtUtils.readBlockPos(com.getCompound("BlockPos"));
-				BlockBreakProgressManager value = BlockBreakProgressManager.read(com.getCompound("BlockBreakProgressManager"), serverLevel, key);
-				if(value != null) {
-					breakProgress.put(key, value);					
-				}
-			});
+			for (int i = 0; i < breakProgressList.size(); i++) {
+				CompoundTag com = breakProgressList.getCompound(i);
+				BlockPos pos = NbtUtils.readBlockPos(com.getCompound("BlockPos"));
+				CompoundTag progressNBT = com.getCompound("BlockBreakProgressManager");
+				int index = breakProgress.add(pos.asLong(), computeDamageToBreakBlock(serverLevel, pos));
+				breakProgress.setProgress(index, progressNBT.getInt("breakProgressAbsolute"));
+				breakProgress.setRelativeProgress(index, progressNBT.getInt("breakProgressRelative"));
+			}
 
 			Baseraids.LOGGER.debug("Finished loading GlobalBlockBreakProgressManager");
 
@@ -0,0 +1,722 @@
+package may.baseraids.entities.ai;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import may.baseraids.Baseraids;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.pathfinder.Node;
+import net.minecraft.world.level.pathfinder.Path;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+/**
+ * This class holds a distance field over the raid arena that all raid mobs
+ * share to find their way to the nexus. Instead of every mob computing its own
+ * path to the nexus, the field is built once per raid by a search outward from
+ * the nexus, and mobs only look up the next cells towards the nexus.
+ * <p>
+ * A cell is a position a mob can stand in. Walls, i.e. cells that are blocked
+ * by breakable blocks, are part of the field as well. Entering them costs the
+ * damage it takes to break the blocks, so the field also tells the mobs where
+ * digging is the shortest way to the nexus.
+ * <p>
+ * The field is built over several ticks using {@link #tick()}. When blocks in
+ * the arena change, the affected cells are updated incrementally, if they only
+ * got cheaper. Otherwise the field is rebuilt into a second buffer, while the
+ * mobs keep using the last complete field until the rebuild is done. The costs
+ * of the blocks and cells are kept across rebuilds, only the changed blocks are
+ * evaluated again.
+ *
+ * @author Natascha May
+ */
+public class NexusFlowField {
+
+	/** The horizontal distance from the nexus covered by the field */
+	private static final int RADIUS_XZ = 64;
+	private static final int SIZE_XZ = 2 * RADIUS_XZ + 1;
+	/** The number of cells below the nexus covered by the field */
+	private static final int BELOW_NEXUS = 16;
+	private static final int SIZE_Y = 32;
+
+	/** The cost of walking into an open cell */
+	public static final int WALK_COST = 5;
+	private static final int IMPASSABLE = Integer.MAX_VALUE;
+	private static final int UNREACHED = Integer.MAX_VALUE;
+	/** The cost of a cell that was not evaluated yet */
+	private static final int UNKNOWN = 0;
+
+	/** The number of cells that are settled per tick while the field is built */
+	private static final int MAX_CELLS_PER_TICK = 4096;
+	/** The minimum number of ticks between two rebuilds of the field */
+	private static final int MIN_TICKS_BETWEEN_REBUILDS = 40;
+	/** The size of the regions whose block changes are tracked is {@code 1 << REGION_SHIFT} blocks */
+	private static final int REGION_SHIFT = 4;
+	private static final int REGIONS_XZ = (SIZE_XZ >> REGION_SHIFT) + 1;
+
+	private static final int[] NEIGHBOR_DX = { 1, -1, 0, 0 };
+	private static final int[] NEIGHBOR_DZ = { 0, 0, 1, -1 };
+	private static final int[] NEIGHBOR_DY = { 0, 1, -1 };
+
+	/** The cost of a block that was not evaluated yet */
+	private static final int BLOCK_UNKNOWN = -1;
+
+	private final Level level;
+
+	/** The nexus position the field was built for or null, if it was not built */
+	private BlockPos center = null;
+	private int minX;
+	private int minY;
+	private int minZ;
+
+	/** The cost to reach the nexus from each cell of the field used by the mobs */
+	private int[] distance;
+	/**
+	 * The distances the search writes to. This is {@link #distance} while the
+	 * field is built for the first time and {@link #spareDistance} during a
+	 * rebuild.
+	 */
+	private int[] buildDistance;
+	/** The buffer for the next rebuild, the previous field after a rebuild */
+	private int[] spareDistance;
+	/** True, if {@link #distance} holds a field whose search finished */
+	private boolean hasCompleteField = false;
+	/** The cost of entering each cell, {@link #UNKNOWN} until it is evaluated */
+	private int[] stepCost;
+	/**
+	 * The cost of each block in the way of a mob, {@link #BLOCK_UNKNOWN} until it
+	 * is evaluated. The blocks span one layer more than the cells above and below,
+	 * for the ground and the head of the outer cells.
+	 */
+	private int[] blockCost;
+	/** Whether each block has a collision shape, valid if its cost is known */
+	private boolean[] blockSolid;
+	private final BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
+	/** The open cells of the search, packed as {@code distance << 32 | index} */
+	private final LongHeapPriorityQueue openCells = new LongHeapPriorityQueue();
+	/** The positions of blocks that changed since the last tick */
+	private final LongOpenHashSet changedBlocks = new LongOpenHashSet();
+
+	private boolean rebuildRequested = false;
+	private int ticksSinceBuild = 0;
+	/** Increased whenever the costs of the field change */
+	private int version = 0;
+	/** Increased whenever the field is built around a new position or cleared */
+	private int buildCount = 0;
+	/** Increased whenever a block in each region of the field changes */
+	private final int[] regionVersions = new int[REGIONS_XZ * REGIONS_XZ];
+
+	public NexusFlowField(Level level) {
+		this.level = level;
+		MinecraftForge.EVENT_BUS.register(this);
+	}
+
+	/**
+	 * Starts building the field around the given nexus position. The field is
+	 * completed over the next calls of {@link #tick()}.
+	 *
+	 * @param nexusPos the position of the nexus
+	 */
+	public void build(BlockPos nexusPos) {
+		center = nexusPos.immutable();
+		minX = center.getX() - RADIUS_XZ;
+		minY = center.getY() - BELOW_NEXUS;
+		minZ = center.getZ() - RADIUS_XZ;
+		if (distance == null) {
+			distance = new int[SIZE_XZ * SIZE_XZ * SIZE_Y];
+			stepCost = new int[distance.length];
+			blockCost = new int[SIZE_XZ * SIZE_XZ * (SIZE_Y + 2)];
+			blockSolid = new boolean[blockCost.length];
+		}
+		Arrays.fill(distance, UNREACHED);
+		Arrays.fill(stepCost, UNKNOWN);
+		Arrays.fill(blockCost, BLOCK_UNKNOWN);
+		buildDistance = distance;
+		hasCompleteField = false;
+		changedBlocks.clear();
+		version++;
+		buildCount++;
+		startSearch();
+	}
+
+	/**
+	 * Starts a new search from the nexus into {@link #buildDistance}.
+	 */
+	private void startSearch() {
+		openCells.clear();
+		rebuildRequested = false;
+		ticksSinceBuild = 0;
+
+		int nexusIndex = toIndex(center.getX(), center.getY(), center.getZ());
+		buildDistance[nexusIndex] = 0;
+		stepCost[nexusIndex] = WALK_COST;
+		openCells.enqueue(pack(0, nexusIndex));
+	}
+
+	/**
+	 * Starts rebuilding the field into the spare buffer. The current field is
+	 * still used until the rebuild is done, see {@link #finishSearch()}.
+	 */
+	private void startRebuild() {
+		if (spareDistance == null) {
+			spareDistance = new int[distance.length];
+		}
+		Arrays.fill(spareDistance, UNREACHED);
+		buildDistance = spareDistance;
+		startSearch();
+	}
+
+	/**
+	 * Publishes the field of the finished search. After a rebuild, the buffers
+	 * are swapped.
+	 */
+	private void finishSearch() {
+		if (buildDistance != distance) {
+			spareDistance = distance;
+			distance = buildDistance;
+			version++;
+		}
+		hasCompleteField = true;
+	}
+
+	/**
+	 * Clears the field and frees its memory. Until it is built again, no
+	 * positions can be looked up.
+	 */
+	public void clear() {
+		center = null;
+		distance = null;
+		buildDistance = null;
+		spareDistance = null;
+		hasCompleteField = false;
+		stepCost = null;
+		blockCost = null;
+		blockSolid = null;
+		openCells.clear();
+		changedBlocks.clear();
+		rebuildRequested = false;
+		version++;
+		buildCount++;
+	}
+
+	/**
+	 * @param nexusPos the position to compare to
+	 * @return true, if the field was built around the given position
+	 */
+	public boolean isBuiltFor(BlockPos nexusPos) {
+		return nexusPos.equals(center);
+	}
+
+	/**
+	 * @return a number that changes whenever the costs of the field change
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Computes a number that only changes when a block near the given path changed
+	 * or the field was built around a new position. Unlike {@link #getVersion()},
+	 * blocks changing elsewhere in the arena do not affect it, so a path stays
+	 * valid while other parts of the arena are broken down.
+	 *
+	 * @param path the path to check
+	 * @return the version of the regions the nodes of the path lie in
+	 */
+	public long getPathVersion(Path path) {
+		long regionSum = 0;
+		if (center != null) {
+			for (int i = 0; i < path.getNodeCount(); i++) {
+				Node node = path.getNode(i);
+				int regionX = (node.x - minX) >> REGION_SHIFT;
+				int regionZ = (node.z - minZ) >> REGION_SHIFT;
+				if (node.x >= minX && node.z >= minZ && regionX < REGIONS_XZ && regionZ < REGIONS_XZ) {
+					// the region versions only increase, so the sum changes whenever one of them changes
+					regionSum += regionVersions[regionX * REGIONS_XZ + regionZ];
+				}
+			}
+		}
+		return ((long) buildCount << 32) | (regionSum & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Increases the version of the regions the given block and its neighbors lie
+	 * in.
+	 */
+	private void markRegionsChanged(int x, int z) {
+		int minRegionX = Math.max(0, (x - 1 - minX) >> REGION_SHIFT);
+		int maxRegionX = Math.min(REGIONS_XZ - 1, (x + 1 - minX) >> REGION_SHIFT);
+		int minRegionZ = Math.max(0, (z - 1 - minZ) >> REGION_SHIFT);
+		int maxRegionZ = Math.min(REGIONS_XZ - 1, (z + 1 - minZ) >> REGION_SHIFT);
+		for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+			for (int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++) {
+				regionVersions[regionX * REGIONS_XZ + regionZ]++;
+			}
+		}
+	}
+
+	/**
+	 * Applies the block changes since the last tick and continues the search
+	 * within the budget of {@link #MAX_CELLS_PER_TICK}. A requested rebuild is
+	 * only started when no search is running.
+	 */
+	public void tick() {
+		if (center == null) {
+			return;
+		}
+		ticksSinceBuild++;
+		applyChangedBlocks();
+		boolean isSearching = !openCells.isEmpty();
+		if (!isSearching && rebuildRequested && ticksSinceBuild >= MIN_TICKS_BETWEEN_REBUILDS) {
+			Baseraids.LOGGER.debug("Rebuilding the nexus flow field");
+			startRebuild();
+			isSearching = true;
+		}
+		if (isSearching) {
+			expand(MAX_CELLS_PER_TICK);
+			if (openCells.isEmpty()) {
+				finishSearch();
+			}
+		}
+	}
+
+	/**
+	 * Settles up to the given number of cells of the search.
+	 */
+	private void expand(int maxCells) {
+		int settled = 0;
+		while (!openCells.isEmpty() && settled < maxCells) {
+			long entry = openCells.dequeueLong();
+			int index = (int) entry;
+			int dist = (int) (entry >>> 32);
+			if (dist != buildDistance[index]) {
+				// outdated entry, the cell was reached more cheaply in the meantime
+				continue;
+			}
+			settled++;
+			relaxNeighbors(index, dist);
+		}
+	}
+
+	/**
+	 * Updates the distance of all cells from which a mob can move into the given
+	 * cell.
+	 */
+	private void relaxNeighbors(int index, int dist) {
+		int x = indexToX(index);
+		int y = indexToY(index);
+		int z = indexToZ(index);
+		for (int dir = 0; dir < NEIGHBOR_DX.length; dir++) {
+			for (int dy : NEIGHBOR_DY) {
+				int nx = x + NEIGHBOR_DX[dir];
+				int ny = y + dy;
+				int nz = z + NEIGHBOR_DZ[dir];
+				if (!isInside(nx, ny, nz)) {
+					continue;
+				}
+				int neighbor = toIndex(nx, ny, nz);
+				int cost = getStepCost(neighbor, nx, ny, nz);
+				if (cost == IMPASSABLE) {
+					continue;
+				}
+				int newDist = dist + cost;
+				if (newDist < buildDistance[neighbor]) {
+					buildDistance[neighbor] = newDist;
+					openCells.enqueue(pack(newDist, neighbor));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evaluates the blocks of all cells that are affected by the blocks that
+	 * changed since the last tick. Cells that got cheaper are updated
+	 * incrementally, if any cell got more expensive a rebuild is requested.
+	 * During a rebuild, the changes only affect the field that is being built.
+	 */
+	private void applyChangedBlocks() {
+		if (changedBlocks.isEmpty()) {
+			return;
+		}
+		LongArrayList changed = new LongArrayList(changedBlocks);
+		changedBlocks.clear();
+		for (int i = 0; i < changed.size(); i++) {
+			long pos = changed.getLong(i);
+			int x = BlockPos.getX(pos);
+			int y = BlockPos.getY(pos);
+			int z = BlockPos.getZ(pos);
+			blockCost[toBlockIndex(x, y, z)] = BLOCK_UNKNOWN;
+			markRegionsChanged(x, z);
+			// the changed block is the feet, head or ground of a cell
+			for (int cellY = y - 1; cellY <= y + 1; cellY++) {
+				updateCell(x, cellY, z);
+			}
+		}
+		if (buildDistance == distance) {
+			version++;
+		}
+	}
+
+	private void updateCell(int x, int y, int z) {
+		if (!isInside(x, y, z)) {
+			return;
+		}
+		int index = toIndex(x, y, z);
+		int oldCost = stepCost[index];
+		if (oldCost == UNKNOWN || buildDistance[index] == 0) {
+			// not evaluated yet, or the nexus itself
+			return;
+		}
+		if (!isLoaded(x, y, z)) {
+			stepCost[index] = UNKNOWN;
+			return;
+		}
+		int newCost = computeStepCost(x, y, z);
+		stepCost[index] = newCost;
+		if (newCost == oldCost) {
+			return;
+		}
+		if (newCost > oldCost) {
+			rebuildRequested = rebuildRequested || buildDistance[index] != UNREACHED;
+			return;
+		}
+
+		// the cell got cheaper, so it might be reached more cheaply from its neighbors
+		int best = buildDistance[index];
+		for (int dir = 0; dir < NEIGHBOR_DX.length; dir++) {
+			for (int dy : NEIGHBOR_DY) {
+				int nx = x + NEIGHBOR_DX[dir];
+				int ny = y + dy;
+				int nz = z + NEIGHBOR_DZ[dir];
+				if (!isInside(nx, ny, nz)) {
+					continue;
+				}
+				int neighborDist = buildDistance[toIndex(nx, ny, nz)];
+				if (neighborDist != UNREACHED && neighborDist + newCost < best) {
+					best = neighborDist + newCost;
+				}
+			}
+		}
+		if (best < buildDistance[index]) {
+			buildDistance[index] = best;
+			openCells.enqueue(pack(best, index));
+		}
+	}
+
+	private int getStepCost(int index, int x, int y, int z) {
+		int cost = stepCost[index];
+		if (cost == UNKNOWN) {
+			if (!isLoaded(x, y, z)) {
+				// treat unloaded parts of the arena as open, the mobs use vanilla navigation there
+				return WALK_COST;
+			}
+			cost = computeStepCost(x, y, z);
+			stepCost[index] = cost;
+		}
+		return cost;
+	}
+
+	private boolean isLoaded(int x, int y, int z) {
+		return level.isLoaded(mutablePos.set(x, y, z));
+	}
+
+	/**
+	 * Computes the cost of entering the loaded cell at the given position. A mob
+	 * needs solid ground below the cell and room for its feet and head. Blocks in
+	 * the way add the damage it takes to break them.
+	 *
+	 * @return the cost or {@link #IMPASSABLE}, if a mob cannot stand in the cell
+	 */
+	private int computeStepCost(int x, int y, int z) {
+		int groundIndex = toBlockIndex(x, y - 1, z);
+		getBlockCost(groundIndex, x, y - 1, z);
+		if (!blockSolid[groundIndex]) {
+			return IMPASSABLE;
+		}
+		int cost = WALK_COST;
+		for (int dy = 0; dy <= 1; dy++) {
+			int blockCost = getBlockCost(toBlockIndex(x, y + dy, z), x, y + dy, z);
+			if (blockCost == IMPASSABLE) {
+				return IMPASSABLE;
+			}
+			cost += blockCost;
+		}
+		return cost;
+	}
+
+	/**
+	 * @return the cost of the block at the given position being in the way of a
+	 *         mob or {@link #IMPASSABLE}, if it cannot be passed or broken
+	 */
+	private int getBlockCost(int blockIndex, int x, int y, int z) {
+		int cost = blockCost[blockIndex];
+		if (cost != BLOCK_UNKNOWN) {
+			return cost;
+		}
+		BlockPos pos = mutablePos.set(x, y, z);
+		BlockState state = level.getBlockState(pos);
+		boolean isSolid = !state.getCollisionShape(level, pos).isEmpty();
+		if (!isSolid) {
+			cost = state.getFluidState().isEmpty() ? 0 : WALK_COST;
+		} else if (state.getDestroySpeed(level, pos) < 0) {
+			cost = IMPASSABLE;
+		} else {
+			cost = GlobalBlockBreakProgressManager.computeDamageToBreakBlock(level, pos);
+		}
+		blockCost[blockIndex] = cost;
+		blockSolid[blockIndex] = isSolid;
+		return cost;
+	}
+
+	/**
+	 * Finds the position a mob at the given position should move towards. The
+	 * field is followed downhill from the given position for up to
+	 * {@code lookahead} cells, but stops in front of walls, so that the mob can
+	 * break them.
+	 *
+	 * @param from      the position of the mob
+	 * @param lookahead the maximum number of cells to follow
+	 * @return the position to move towards or null, if the field does not cover
+	 *         the given position yet
+	 */
+	@Nullable
+	public BlockPos getWaypoint(BlockPos from, int lookahead) {
+		int index = findCell(from);
+		if (index < 0) {
+			return null;
+		}
+		for (int step = 0; step < lookahead; step++) {
+			int next = getNextCell(index);
+			if (next < 0) {
+				break;
+			}
+			if (stepCost[next] > WALK_COST) {
+				// move into the wall cell, the navigation stops in front of it
+				if (step == 0) {
+					index = next;
+				}
+				break;
+			}
+			index = next;
+		}
+		return new BlockPos(indexToX(index), indexToY(index), indexToZ(index));
+	}
+
+	/**
+	 * Finds the block the mob at the given position should break next, if the
+	 * next cell towards the nexus is blocked.
+	 *
+	 * @param from the position of the mob
+	 * @return the block to break or null, if the next cell is open or the field
+	 *         does not cover the given position yet
+	 */
+	@Nullable
+	public BlockPos getBlockToBreak(BlockPos from) {
+		return findFirstWall(from, 1);
+	}
+
+	/**
+	 * Follows the field from the given position towards the nexus and returns the
+	 * first block that blocks the way.
+	 *
+	 * @param from     the position to start from
+	 * @param maxSteps the maximum number of cells to follow
+	 * @return the first block to break or null, if the way is open for the given
+	 *         number of cells or the field does not cover the given position yet
+	 */
+	@Nullable
+	public BlockPos findFirstWall(BlockPos from, int maxSteps) {
+		int index = findCell(from);
+		if (index < 0) {
+			return null;
+		}
+		for (int step = 0; step < maxSteps; step++) {
+			int next = getNextCell(index);
+			if (next < 0) {
+				return null;
+			}
+			if (stepCost[next] > WALK_COST) {
+				BlockPos blockingBlock = getBlockingBlock(next);
+				if (blockingBlock != null) {
+					return blockingBlock;
+				}
+			}
+			index = next;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the lower block with a collision shape in the given cell or null,
+	 *         if the cell is not blocked
+	 */
+	@Nullable
+	private BlockPos getBlockingBlock(int index) {
+		BlockPos.MutableBlockPos pos = mutablePos.set(indexToX(index), indexToY(index), indexToZ(index));
+		for (int dy = 0; dy <= 1; dy++) {
+			pos.setY(indexToY(index) + dy);
+			if (!level.getBlockState(pos).getCollisionShape(level, pos).isEmpty()) {
+				return pos.immutable();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param pos the position to check
+	 * @return true, if the field already reached the given position
+	 */
+	public boolean isCovered(BlockPos pos) {
+		return findCell(pos) >= 0;
+	}
+
+	/**
+	 * @return true, if the field was built and all cells are settled. This stays
+	 *         true while the field is rebuilt.
+	 */
+	public boolean isComplete() {
+		return center != null && hasCompleteField;
+	}
+
+	/**
+	 * @return the index of the cell for the given position or -1, if it is not
+	 *         covered by the field yet
+	 */
+	private int findCell(BlockPos pos) {
+		if (center == null || !isInside(pos.getX(), pos.getY(), pos.getZ())) {
+			return -1;
+		}
+		int index = toIndex(pos.getX(), pos.getY(), pos.getZ());
+		return distance[index] == UNREACHED ? -1 : index;
+	}
+
+	/**
+	 * @return the neighbor of the given cell with the lowest distance to the
+	 *         nexus or -1, if no neighbor is closer to the nexus
+	 */
+	private int getNextCell(int index) {
+		int x = indexToX(index);
+		int y = indexToY(index);
+		int z = indexToZ(index);
+		int best = -1;
+		int bestDist = distance[index];
+		for (int dir = 0; dir < NEIGHBOR_DX.length; dir++) {
+			for (int dy : NEIGHBOR_DY) {
+				int nx = x + NEIGHBOR_DX[dir];
+				int ny = y + dy;
+				int nz = z + NEIGHBOR_DZ[dir];
+				if (!isInside(nx, ny, nz)) {
+					continue;
+				}
+				int neighbor = toIndex(nx, ny, nz);
+				if (distance[neighbor] < bestDist) {
+					bestDist = distance[neighbor];
+					best = neighbor;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Marks the given block as changed, e.g. after it was broken by a raid mob.
+	 * The field is updated in the next tick.
+	 *
+	 * @param pos the position of the changed block
+	 */
+	public void markBlockChanged(BlockPos pos) {
+		if (center == null || !isBlockInside(pos.getX(), pos.getY(), pos.getZ())) {
+			return;
+		}
+		changedBlocks.add(pos.asLong());
+	}
+
+	/**
+	 * Marks a block broken by a player as changed.
+	 *
+	 * @param event the event of type {@link BlockEvent.BreakEvent} that triggers
+	 *              this method
+	 */
+	@SubscribeEvent
+	public void onBlockBreakMarkChanged(final BlockEvent.BreakEvent event) {
+		if (event.getLevel().isClientSide() || !event.getLevel().equals(level)) {
+			return;
+		}
+		markBlockChanged(event.getPos());
+	}
+
+	/**
+	 * Marks a placed block as changed.
+	 *
+	 * @param event the event of type {@link BlockEvent.EntityPlaceEvent} that
+	 *              triggers this method
+	 */
+	@SubscribeEvent
+	public void onBlockPlaceMarkChanged(final BlockEvent.EntityPlaceEvent event) {
+		if (event.getLevel().isClientSide() || !event.getLevel().equals(level)) {
+			return;
+		}
+		markBlockChanged(event.getPos());
+	}
+
+	private boolean isInside(int x, int y, int z) {
+		return x >= minX && x < minX + SIZE_XZ && y >= minY && y < minY + SIZE_Y && z >= minZ && z < minZ + SIZE_XZ;
+	}
+
+	/**
+	 * @return true, if the block is the ground, feet or head of any cell
+	 */
+	private boolean isBlockInside(int x, int y, int z) {
+		return x >= minX && x < minX + SIZE_XZ && y >= minY - 1 && y <= minY + SIZE_Y && z >= minZ
+				&& z < minZ + SIZE_XZ;
+	}
+
+	private int toIndex(int x, int y, int z) {
+		return ((y - minY) * SIZE_XZ + (z - minZ)) * SIZE_XZ + (x - minX);
+	}
+
+	private int toBlockIndex(int x, int y, int z) {
+		return ((y - minY + 1) * SIZE_XZ + (z - minZ)) * SIZE_XZ + (x - minX);
+	}
+
+	private int indexToX(int index) {
+		return index % SIZE_XZ + minX;
+	}
+
+	private int indexToZ(int index) {
+		return (index / SIZE_XZ) % SIZE_XZ + minZ;
+	}
+
+	private int indexToY(int index) {
+		return index / (SIZE_XZ * SIZE_XZ) + minY;
+	}
+
+	private static long pack(int dist, int index) {
+		return ((long) dist << 32) | index;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(center, level);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		NexusFlowField other = (NexusFlowField) obj;
+		return Objects.equals(center, other.center) && Objects.equals(level, other.level);
+	}
+}
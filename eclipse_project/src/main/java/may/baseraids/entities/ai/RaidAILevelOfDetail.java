@@ -0,0 +1,134 @@
+package may.baseraids.entities.ai;
+
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import may.baseraids.nexus.NexusBlock;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Mob;
+
+/**
+ * This class assigns a level of detail to the AI of each raid mob. Mobs close
+ * to a player or to the nexus are simulated at full detail. Mobs far away from
+ * all players only run their raid goals every few ticks and move in larger
+ * steps, which is not visible to the players.
+ * <p>
+ * The tier of a mob is cached by its entity id and recomputed every
+ * {@link #UPDATE_INTERVAL} ticks.
+ *
+ * @author Natascha May
+ */
+public class RaidAILevelOfDetail {
+
+	/**
+	 * The tiers of detail. The tick interval is the number of goal ticks per
+	 * actual update of a goal, the step multiplier scales how far a mob moves per
+	 * path.
+	 */
+	public enum Tier {
+		FULL(1, 1), REDUCED(2, 2), DISTANT(4, 3);
+
+		public final int tickInterval;
+		public final int stepMultiplier;
+
+		Tier(int tickInterval, int stepMultiplier) {
+			this.tickInterval = tickInterval;
+			this.stepMultiplier = stepMultiplier;
+		}
+	}
+
+	private static final Tier[] TIERS = Tier.values();
+	/** The number of ticks after which the tier of a mob is recomputed */
+	private static final int UPDATE_INTERVAL = 20;
+	private static final double FULL_DETAIL_PLAYER_DISTANCE = 32;
+	private static final double REDUCED_DETAIL_PLAYER_DISTANCE = 64;
+	private static final double FULL_DETAIL_NEXUS_DISTANCE = 16;
+
+	/** The tier of each mob packed as {@code tickCount << 8 | ordinal} */
+	private final Int2LongOpenHashMap tiers = new Int2LongOpenHashMap();
+
+	public RaidAILevelOfDetail() {
+		tiers.defaultReturnValue(-1);
+	}
+
+	/**
+	 * @param mob the raid mob
+	 * @return the current tier of the mob
+	 */
+	public Tier getTier(Mob mob) {
+		long entry = tiers.get(mob.getId());
+		if (entry >= 0 && mob.tickCount - (int) (entry >>> 8) < UPDATE_INTERVAL) {
+			return TIERS[(int) (entry & 0xFF)];
+		}
+		Tier tier = computeTier(mob);
+		tiers.put(mob.getId(), ((long) mob.tickCount << 8) | tier.ordinal());
+		return tier;
+	}
+
+	private Tier computeTier(Mob mob) {
+		BlockPos nexusPos = NexusBlock.getBlockPos();
+		if (mob.distanceToSqr(nexusPos.getX(), nexusPos.getY(), nexusPos.getZ()) < FULL_DETAIL_NEXUS_DISTANCE
+				* FULL_DETAIL_NEXUS_DISTANCE) {
+			return Tier.FULL;
+		}
+		if (mob.level.hasNearbyAlivePlayer(mob.getX(), mob.getY(), mob.getZ(), FULL_DETAIL_PLAYER_DISTANCE)) {
+			return Tier.FULL;
+		}
+		if (mob.level.hasNearbyAlivePlayer(mob.getX(), mob.getY(), mob.getZ(), REDUCED_DETAIL_PLAYER_DISTANCE)) {
+			return Tier.REDUCED;
+		}
+		return Tier.DISTANT;
+	}
+
+	/**
+	 * Removes all cached tiers.
+	 */
+	public void clear() {
+		tiers.clear();
+	}
+
+	/**
+	 * @param mob the raid mob that uses the gate
+	 * @return a new gate for one method of one goal of the given mob
+	 */
+	public TickGate createTickGate(Mob mob) {
+		return new TickGate(this, mob);
+	}
+
+	/**
+	 * Decides for each call of one method of a goal, e.g. {@code tick}, whether
+	 * the call should be executed based on the tier of the mob. Each method needs
+	 * its own gate, because the goal selector does not call every method in every
+	 * tick.
+	 */
+	public static class TickGate {
+		private final RaidAILevelOfDetail levelOfDetail;
+		private final Mob mob;
+		private int skippedCalls = 0;
+		private int passedCalls = 1;
+
+		private TickGate(RaidAILevelOfDetail levelOfDetail, Mob mob) {
+			this.levelOfDetail = levelOfDetail;
+			this.mob = mob;
+		}
+
+		/**
+		 * @return true, if this call should be executed
+		 */
+		public boolean pass() {
+			skippedCalls++;
+			if (skippedCalls < levelOfDetail.getTier(mob).tickInterval) {
+				return false;
+			}
+			passedCalls = skippedCalls;
+			skippedCalls = 0;
+			return true;
+		}
+
+		/**
+		 * @return the number of calls the last executed call stands in for. Effects
+		 *         per call, like damage, should be multiplied by this.
+		 */
+		public int getPassedCalls() {
+			return passedCalls;
+		}
+	}
+}
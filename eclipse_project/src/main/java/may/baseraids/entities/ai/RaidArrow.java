@@ -5,6 +5,8 @@ import java.util.Objects;
 import javax.annotation.Nullable;
 
 import may.baseraids.RaidManager;
+import may.baseraids.config.ConfigOptions;
+import may.baseraids.entities.RaidEliteManager;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.projectile.Arrow;
@@ -28,7 +30,29 @@ public class RaidArrow extends Arrow {
 	public RaidArrow(Level level, LivingEntity shooter, RaidManager raidManager) {
 		super(level, shooter);
 		this.raidManager = raidManager;
-		this.blockBreakDamage = DEFAULT_DAMAGE;
+		this.blockBreakDamage = getBlockBreakDamage(shooter);
+	}
+
+	/**
+	 * @param shooter the entity that shoots the arrow
+	 * @return the breaking progress the first hit of an arrow of the given shooter
+	 *         adds to a block
+	 */
+	public static int getBlockBreakDamage(Entity shooter) {
+		return DEFAULT_DAMAGE * RaidEliteManager.getEliteWeight(shooter);
+	}
+
+	/**
+	 * Removes the arrow once it was stuck in the ground for the time defined by
+	 * {@link ConfigOptions#getRaidArrowLifetime()}, which is much shorter than for
+	 * vanilla arrows.
+	 */
+	@Override
+	public void tick() {
+		super.tick();
+		if (!level.isClientSide() && inGround && inGroundTime > ConfigOptions.getRaidArrowLifetime()) {
+			discard();
+		}
 	}
 
 	/**
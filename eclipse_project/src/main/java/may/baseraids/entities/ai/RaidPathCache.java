@@ -0,0 +1,147 @@
+package may.baseraids.entities.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.pathfinder.Node;
+import net.minecraft.world.level.pathfinder.Path;
+
+/**
+ * This class shares computed paths between raid mobs. Mobs that start close to
+ * each other and head for the same area usually need the same path, so the
+ * path of the first mob, the leader, is cached and copied for the following
+ * mobs. Each copy starts at the node closest to the mob that uses it.
+ * <p>
+ * Paths are cached by coarse cells of their start and target and are dropped
+ * after {@link #MAX_AGE} ticks or when blocks near the path changed, see
+ * {@link NexusFlowField#getPathVersion(Path)}.
+ *
+ * @author Natascha May
+ */
+public class RaidPathCache {
+
+	/** The size of the coarse cells is {@code 1 << CELL_SHIFT} blocks */
+	private static final int CELL_SHIFT = 2;
+	/** The number of ticks a path can be shared */
+	private static final int MAX_AGE = 100;
+	/** The maximum squared distance of a mob to the start of a shared path */
+	private static final int MAX_START_DISTANCE_SQR = 9;
+	/** Outdated paths are removed when the cache grows beyond this size */
+	private static final int PURGE_SIZE = 256;
+
+	private final NexusFlowField flowField;
+	private final Long2ObjectOpenHashMap<CachedPath> paths = new Long2ObjectOpenHashMap<>();
+
+	public RaidPathCache(NexusFlowField flowField) {
+		this.flowField = flowField;
+	}
+
+	/**
+	 * Returns a path for the given mob to the given target. If a mob nearby
+	 * already computed a path to the same area, a copy of its path is returned.
+	 * Otherwise a new path is computed and cached.
+	 *
+	 * @param mob    the mob that wants to move
+	 * @param target the position to move to
+	 * @return the path or null, if no path could be found
+	 */
+	@Nullable
+	public Path getOrCreatePath(Mob mob, BlockPos target) {
+		BlockPos start = mob.blockPosition();
+		long startCell = BlockPos.asLong(start.getX() >> CELL_SHIFT, start.getY() >> CELL_SHIFT,
+				start.getZ() >> CELL_SHIFT);
+		long targetCell = BlockPos.asLong(target.getX() >> CELL_SHIFT, target.getY() >> CELL_SHIFT,
+				target.getZ() >> CELL_SHIFT);
+		long key = startCell * 31 + targetCell;
+		long gameTime = mob.level.getGameTime();
+
+		CachedPath cached = paths.get(key);
+		if (cached != null && cached.isValid(startCell, targetCell, gameTime)) {
+			Path copy = copyFromNearestNode(cached.path, start);
+			if (copy != null) {
+				return copy;
+			}
+		}
+
+		Path path = mob.getNavigation().createPath(target, 0);
+		if (path == null) {
+			return null;
+		}
+		if (paths.size() >= PURGE_SIZE) {
+			paths.values().removeIf(entry -> entry.isOutdated(gameTime));
+		}
+		paths.put(key, new CachedPath(startCell, targetCell, path, gameTime, flowField.getPathVersion(path)));
+		return path;
+	}
+
+	/**
+	 * Removes all cached paths.
+	 */
+	public void clear() {
+		paths.clear();
+	}
+
+	/**
+	 * Copies the given path, so that the copy starts at the node closest to the
+	 * given position.
+	 *
+	 * @return the copy or null, if no node is close enough to the given position
+	 */
+	@Nullable
+	private static Path copyFromNearestNode(Path path, BlockPos start) {
+		int nearestIndex = -1;
+		int nearestDistSqr = MAX_START_DISTANCE_SQR + 1;
+		List<Node> nodes = new ArrayList<>(path.getNodeCount());
+		for (int i = 0; i < path.getNodeCount(); i++) {
+			Node node = path.getNode(i);
+			nodes.add(node);
+			int dx = node.x - start.getX();
+			int dy = node.y - start.getY();
+			int dz = node.z - start.getZ();
+			int distSqr = dx * dx + dy * dy + dz * dz;
+			if (distSqr < nearestDistSqr) {
+				nearestDistSqr = distSqr;
+				nearestIndex = i;
+			}
+		}
+		if (nearestIndex < 0) {
+			return null;
+		}
+		Path copy = new Path(nodes, path.getTarget(), path.canReach());
+		copy.setNextNodeIndex(nearestIndex);
+		return copy;
+	}
+
+	/**
+	 * A path computed by a leader together with the data to check whether it can
+	 * still be shared.
+	 */
+	private class CachedPath {
+		private final long startCell;
+		private final long targetCell;
+		private final Path path;
+		private final long createdGameTime;
+		private final long pathVersion;
+
+		private CachedPath(long startCell, long targetCell, Path path, long createdGameTime, long pathVersion) {
+			this.startCell = startCell;
+			this.targetCell = targetCell;
+			this.path = path;
+			this.createdGameTime = createdGameTime;
+			this.pathVersion = pathVersion;
+		}
+
+		private boolean isValid(long startCell, long targetCell, long gameTime) {
+			return this.startCell == startCell && this.targetCell == targetCell && !isOutdated(gameTime);
+		}
+
+		private boolean isOutdated(long gameTime) {
+			return gameTime - createdGameTime > MAX_AGE || pathVersion != flowField.getPathVersion(path);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package may.baseraids.entities.ai;
+
+import java.util.Arrays;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.BlockHitResult;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+/**
+ * This class memoizes the raycasts of the raid mobs for one tick. Rays are keyed
+ * by their start position, quantized to half blocks, and the block of their end
+ * position. Thus, the same ray is only cast once per tick, even if it is needed
+ * by several checks of one mob or by several mobs standing in the same spot.
+ * <p>
+ * The results are stored in a fixed size table with open addressing. Entries
+ * of previous ticks count as free, so the table never has to be cleared. Rays
+ * are cast block by block on primitive coordinates. Full blocks are hit without
+ * further checks, so neither a cached ray nor a new ray through full blocks
+ * allocates any objects. Other blocks, e.g. slabs, fences or panes, are clipped
+ * against their actual collision shape like {@link Level#clip}.
+ *
+ * @author Natascha May
+ */
+public class RaidRaycastCache {
+
+	/** The number of slots of the table, must be a power of two */
+	private static final int CAPACITY = 4096;
+	private static final int MASK = CAPACITY - 1;
+	/** The number of slots that are checked for a key before a slot is overwritten */
+	private static final int MAX_PROBES = 8;
+
+	private final long[] startKeys = new long[CAPACITY];
+	private final long[] endKeys = new long[CAPACITY];
+	/** The game time at which each slot was written */
+	private final long[] gameTimes = new long[CAPACITY];
+	/** The packed position of the block each ray hit */
+	private final long[] results = new long[CAPACITY];
+
+	/** Reused for the block lookups of the raycasts */
+	private final BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos();
+
+	public RaidRaycastCache() {
+		Arrays.fill(gameTimes, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Casts a ray that collides with the collision shapes of blocks, or returns
+	 * the result of an equivalent ray cast in this tick.
+	 *
+	 * @param entity the entity that casts the ray
+	 * @param startX the x-coordinate of the start, usually the eye position
+	 * @param startY the y-coordinate of the start
+	 * @param startZ the z-coordinate of the start
+	 * @param endX   the x-coordinate of the end
+	 * @param endY   the y-coordinate of the end
+	 * @param endZ   the z-coordinate of the end
+	 * @return the position of the first block that was hit packed with
+	 *         {@link BlockPos#asLong()}. If no block was hit, this is the position
+	 *         of the block at the end of the ray, like for a missed
+	 *         {@link BlockHitResult}.
+	 */
+	public long clip(Entity entity, double startX, double startY, double startZ, double endX, double endY,
+			double endZ) {
+		long gameTime = entity.level.getGameTime();
+		long startKey = BlockPos.asLong(Mth.floor(startX * 2), Mth.floor(startY * 2), Mth.floor(startZ * 2));
+		long endKey = BlockPos.asLong(Mth.floor(endX), Mth.floor(endY), Mth.floor(endZ));
+		long hash = startKey * 0x9E3779B97F4A7C15L ^ endKey;
+		int firstSlot = (int) (hash ^ (hash >>> 32)) & MASK;
+
+		int freeSlot = -1;
+		for (int probe = 0; probe < MAX_PROBES; probe++) {
+			int slot = (firstSlot + probe) & MASK;
+			if (gameTimes[slot] != gameTime) {
+				if (freeSlot < 0) {
+					freeSlot = slot;
+				}
+				continue;
+			}
+			if (startKeys[slot] == startKey && endKeys[slot] == endKey) {
+				return results[slot];
+			}
+		}
+
+		long result = traverseBlocks(entity.level, startX, startY, startZ, endX, endY, endZ);
+		int slot = freeSlot < 0 ? firstSlot : freeSlot;
+		startKeys[slot] = startKey;
+		endKeys[slot] = endKey;
+		gameTimes[slot] = gameTime;
+		results[slot] = result;
+		return result;
+	}
+
+	/**
+	 * Walks along the blocks the ray passes in order, like
+	 * {@link net.minecraft.world.level.BlockGetter#traverseBlocks}, and stops at
+	 * the first block whose collision shape is hit by the ray.
+	 *
+	 * @return the packed position of the hit block or of the block at the end of
+	 *         the ray
+	 */
+	private long traverseBlocks(Level level, double startX, double startY, double startZ, double endX, double endY,
+			double endZ) {
+		// extend the ray by a tiny bit in both directions, like vanilla does
+		double fromX = Mth.lerp(-1.0E-7D, startX, endX);
+		double fromY = Mth.lerp(-1.0E-7D, startY, endY);
+		double fromZ = Mth.lerp(-1.0E-7D, startZ, endZ);
+		double toX = Mth.lerp(-1.0E-7D, endX, startX);
+		double toY = Mth.lerp(-1.0E-7D, endY, startY);
+		double toZ = Mth.lerp(-1.0E-7D, endZ, startZ);
+
+		int x = Mth.floor(fromX);
+		int y = Mth.floor(fromY);
+		int z = Mth.floor(fromZ);
+		if (isBlocking(level, x, y, z, startX, startY, startZ, endX, endY, endZ)) {
+			return BlockPos.asLong(x, y, z);
+		}
+
+		double dx = toX - fromX;
+		double dy = toY - fromY;
+		double dz = toZ - fromZ;
+		int stepX = Mth.sign(dx);
+		int stepY = Mth.sign(dy);
+		int stepZ = Mth.sign(dz);
+		// the fraction of the ray that is needed to cross one block in each axis
+		double deltaX = stepX == 0 ? Double.MAX_VALUE : stepX / dx;
+		double deltaY = stepY == 0 ? Double.MAX_VALUE : stepY / dy;
+		double deltaZ = stepZ == 0 ? Double.MAX_VALUE : stepZ / dz;
+		// the fraction of the ray at which the next block boundary is crossed in each axis
+		double nextX = deltaX * (stepX > 0 ? 1.0D - Mth.frac(fromX) : Mth.frac(fromX));
+		double nextY = deltaY * (stepY > 0 ? 1.0D - Mth.frac(fromY) : Mth.frac(fromY));
+		double nextZ = deltaZ * (stepZ > 0 ? 1.0D - Mth.frac(fromZ) : Mth.frac(fromZ));
+
+		while (nextX <= 1.0D || nextY <= 1.0D || nextZ <= 1.0D) {
+			if (nextX < nextY) {
+				if (nextX < nextZ) {
+					x += stepX;
+					nextX += deltaX;
+				} else {
+					z += stepZ;
+					nextZ += deltaZ;
+				}
+			} else if (nextY < nextZ) {
+				y += stepY;
+				nextY += deltaY;
+			} else {
+				z += stepZ;
+				nextZ += deltaZ;
+			}
+
+			if (isBlocking(level, x, y, z, startX, startY, startZ, endX, endY, endZ)) {
+				return BlockPos.asLong(x, y, z);
+			}
+		}
+		return BlockPos.asLong(Mth.floor(endX), Mth.floor(endY), Mth.floor(endZ));
+	}
+
+	/**
+	 * @return true, if the ray hits the collision shape of the block at the given
+	 *         position
+	 */
+	private boolean isBlocking(Level level, int x, int y, int z, double startX, double startY, double startZ,
+			double endX, double endY, double endZ) {
+		mutablePos.set(x, y, z);
+		BlockState state = level.getBlockState(mutablePos);
+		if (state.isCollisionShapeFullBlock(level, mutablePos)) {
+			return true;
+		}
+		VoxelShape shape = state.getCollisionShape(level, mutablePos);
+		if (shape.isEmpty()) {
+			return false;
+		}
+		return shape.clip(new Vec3(startX, startY, startZ), new Vec3(endX, endY, endZ), mutablePos) != null;
+	}
+}
@@ -0,0 +1,138 @@
+package may.baseraids.entities.ai;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import may.baseraids.Baseraids;
+import may.baseraids.nexus.NexusBlock;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+/**
+ * This class plans where the raid mobs break through the defences around the
+ * nexus. The area around the nexus is split into angular sectors. For each
+ * sector, the cheapest way from the spawn ring to the nexus is taken from the
+ * {@link NexusFlowField} and its first blocked cell becomes the breach target of
+ * the sector.
+ * <p>
+ * All mobs in a sector attack the same breach target, so that they do not
+ * spread their damage over many blocks and do not have to search for targets
+ * themselves. The plan is updated once per wave and whenever the blocks in the
+ * arena change.
+ *
+ * @author Natascha May
+ */
+public class RaidSiegePlanner {
+
+	private static final int SECTOR_COUNT = 16;
+	private static final double SECTOR_ANGLE = 2 * Math.PI / SECTOR_COUNT;
+	/** The distance from the nexus at which the ways to the nexus are traced */
+	private static final int TRACE_RADIUS = 50;
+	/** The maximum number of cells that are followed from the start of a trace */
+	private static final int MAX_TRACE_STEPS = 256;
+
+	private final Level level;
+	private final NexusFlowField flowField;
+
+	/** The breach target of each sector or null, if the way is open */
+	private final BlockPos[] breachTargets = new BlockPos[SECTOR_COUNT];
+	private boolean replanRequested = false;
+	/** The version of the {@link NexusFlowField} the plan was made for */
+	private int plannedFieldVersion = -1;
+
+	public RaidSiegePlanner(Level level, NexusFlowField flowField) {
+		this.level = level;
+		this.flowField = flowField;
+	}
+
+	/**
+	 * Requests to update the breach targets. The update is done as soon as the
+	 * {@link NexusFlowField} is complete.
+	 */
+	public void requestReplan() {
+		replanRequested = true;
+	}
+
+	/**
+	 * Removes all breach targets.
+	 */
+	public void clear() {
+		Arrays.fill(breachTargets, null);
+		replanRequested = false;
+		plannedFieldVersion = -1;
+	}
+
+	/**
+	 * Updates the breach targets, if requested or the {@link NexusFlowField} was
+	 * rebuilt, as soon as the field is complete. This is expected to be called
+	 * after the field was ticked.
+	 */
+	public void tick() {
+		if (!flowField.isComplete()) {
+			return;
+		}
+		if (!replanRequested && plannedFieldVersion == flowField.getVersion()) {
+			return;
+		}
+		replanRequested = false;
+		plannedFieldVersion = flowField.getVersion();
+		plan();
+	}
+
+	/**
+	 * Traces the way to the nexus from the center of each sector on the spawn
+	 * ring and saves the first block in the way as breach target of the sector.
+	 */
+	private void plan() {
+		BlockPos nexusPos = NexusBlock.getBlockPos();
+		int planned = 0;
+		for (int sector = 0; sector < SECTOR_COUNT; sector++) {
+			double angle = (sector + 0.5) * SECTOR_ANGLE;
+			int x = nexusPos.getX() + (int) (TRACE_RADIUS * Math.cos(angle));
+			int z = nexusPos.getZ() + (int) (TRACE_RADIUS * Math.sin(angle));
+			int y = level.getHeight(Heightmap.Types.WORLD_SURFACE, x, z);
+			breachTargets[sector] = flowField.findFirstWall(new BlockPos(x, y, z), MAX_TRACE_STEPS);
+			if (breachTargets[sector] != null) {
+				planned++;
+			}
+		}
+		Baseraids.LOGGER.debug("Planned breach targets for {} of {} sectors", planned, SECTOR_COUNT);
+	}
+
+	/**
+	 * @param entity the raid mob
+	 * @return the breach target of the sector the entity is in or null, if there
+	 *         is none
+	 */
+	@Nullable
+	public BlockPos getBreachTarget(Entity entity) {
+		BlockPos nexusPos = NexusBlock.getBlockPos();
+		double angle = Math.atan2(entity.getZ() - nexusPos.getZ(), entity.getX() - nexusPos.getX());
+		if (angle < 0) {
+			angle += 2 * Math.PI;
+		}
+		int sector = Math.min((int) (angle / SECTOR_ANGLE), SECTOR_COUNT - 1);
+		return breachTargets[sector];
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(level, Arrays.hashCode(breachTargets));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		RaidSiegePlanner other = (RaidSiegePlanner) obj;
+		return Objects.equals(level, other.level) && Arrays.equals(breachTargets, other.breachTargets);
+	}
+}
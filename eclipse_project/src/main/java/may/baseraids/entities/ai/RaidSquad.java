@@ -0,0 +1,120 @@
+package may.baseraids.entities.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Mob;
+
+/**
+ * This class defines a squad of raid mobs that were spawned together. The first
+ * member is the leader, which finds the way and the blocks to attack. The other
+ * members, the followers, keep a fixed offset to the leader and attack the same
+ * block as the leader.
+ * <p>
+ * If the leader leaves the squad, the next member becomes the leader.
+ *
+ * @author Natascha May
+ */
+public class RaidSquad {
+
+	public static final int MIN_SIZE = 4;
+	public static final int MAX_SIZE = 8;
+	/** The distance of the followers to the leader in the formation */
+	private static final double FORMATION_RADIUS = 2.0D;
+	private static final double FORMATION_ANGLE = 2 * Math.PI / (MAX_SIZE - 1);
+
+	/** The members of the squad, the first one is the leader */
+	private final List<Mob> members = new ArrayList<>(MAX_SIZE);
+	/** The block the leader is attacking or null, if it attacks none */
+	private BlockPos targetBlock = null;
+
+	RaidSquad(Mob leader) {
+		members.add(leader);
+	}
+
+	void add(Mob mob) {
+		members.add(mob);
+	}
+
+	/**
+	 * Removes the given mob from the squad. If it was the leader, the next member
+	 * becomes the leader.
+	 */
+	void remove(Mob mob) {
+		members.remove(mob);
+	}
+
+	/**
+	 * Removes the member that joined last, which is never the leader unless it is
+	 * the only member.
+	 *
+	 * @return the removed member
+	 */
+	Mob removeLastMember() {
+		return members.remove(members.size() - 1);
+	}
+
+	int size() {
+		return members.size();
+	}
+
+	boolean isFull() {
+		return members.size() >= MAX_SIZE;
+	}
+
+	boolean isEmpty() {
+		return members.isEmpty();
+	}
+
+	@Nullable
+	public Mob getLeader() {
+		return members.isEmpty() ? null : members.get(0);
+	}
+
+	/**
+	 * @param mob a member of the squad
+	 * @return true, if the given mob leads the squad
+	 */
+	public boolean isLeader(Mob mob) {
+		return getLeader() == mob;
+	}
+
+	/**
+	 * @return the block the leader is attacking or null, if it attacks none
+	 */
+	@Nullable
+	public BlockPos getTargetBlock() {
+		return targetBlock;
+	}
+
+	/**
+	 * @param targetBlock the block the leader is attacking or null, if it attacks
+	 *                    none
+	 */
+	public void setTargetBlock(@Nullable BlockPos targetBlock) {
+		this.targetBlock = targetBlock;
+	}
+
+	/**
+	 * @param follower a follower of the squad
+	 * @return the x-offset of the follower to the leader in the formation
+	 */
+	public double getFormationOffsetX(Mob follower) {
+		return FORMATION_RADIUS * Math.cos(getFormationSlot(follower) * FORMATION_ANGLE);
+	}
+
+	/**
+	 * @param follower a follower of the squad
+	 * @return the z-offset of the follower to the leader in the formation
+	 */
+	public double getFormationOffsetZ(Mob follower) {
+		return FORMATION_RADIUS * Math.sin(getFormationSlot(follower) * FORMATION_ANGLE);
+	}
+
+	private int getFormationSlot(Mob follower) {
+		return Math.max(0, members.indexOf(follower) - 1);
+	}
+}
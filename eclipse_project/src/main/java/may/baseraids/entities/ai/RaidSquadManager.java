@@ -0,0 +1,161 @@
+package may.baseraids.entities.ai;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.SpawnPlacements;
+
+/**
+ * This class groups the raid mobs into {@link RaidSquad}s while they are
+ * spawned. Consecutively spawned mobs that walk on the ground join the same
+ * squad until it is full. When the wave is spawned, a last squad smaller than
+ * {@link RaidSquad#MIN_SIZE} is filled up with members of the squad before it,
+ * or merged into it, so that all squads have between {@link RaidSquad#MIN_SIZE}
+ * and {@link RaidSquad#MAX_SIZE} members. Only a wave with fewer ground mobs
+ * than {@link RaidSquad#MIN_SIZE} forms a smaller squad. The squads are keyed by
+ * the entity ids of their members.
+ * <p>
+ * Squads are not saved. After loading a running raid, all mobs act on their
+ * own.
+ *
+ * @author Natascha May
+ */
+public class RaidSquadManager {
+
+	private final Int2ObjectOpenHashMap<RaidSquad> squadsById = new Int2ObjectOpenHashMap<>();
+	/** The squad that the next spawned mob joins or null, if a new one is formed */
+	private RaidSquad currentSquad = null;
+	/** The squad formed before the current one in this wave or null, if there is none */
+	private RaidSquad previousSquad = null;
+
+	/**
+	 * Returns where the next mob of the given type should be spawned to join the
+	 * current squad.
+	 *
+	 * @param entityType the type of the next mob
+	 * @return the position of the leader of the current squad or null, if the
+	 *         mob will not join the current squad
+	 */
+	@Nullable
+	public BlockPos getSpawnPosForNextMember(EntityType<?> entityType) {
+		if (!canJoinCurrentSquad(entityType)) {
+			return null;
+		}
+		return currentSquad.getLeader().blockPosition();
+	}
+
+	/**
+	 * Adds the freshly spawned mob to the current squad. If it cannot join the
+	 * current squad, it forms a new one and becomes its leader.
+	 *
+	 * @param mob the spawned mob
+	 */
+	public void assign(Mob mob) {
+		if (!canFormSquad(mob.getType())) {
+			return;
+		}
+		if (canJoinCurrentSquad(mob.getType())) {
+			currentSquad.add(mob);
+		} else {
+			previousSquad = currentSquad;
+			currentSquad = new RaidSquad(mob);
+		}
+		squadsById.put(mob.getId(), currentSquad);
+	}
+
+	/**
+	 * Closes the current squad, so that the next spawned mob forms a new one. If
+	 * the current squad is too small, it is filled up or merged, see
+	 * {@link #fillUpLastSquad(RaidSquad, RaidSquad)}.
+	 */
+	public void closeCurrentSquad() {
+		if (currentSquad != null && previousSquad != null && currentSquad.size() < RaidSquad.MIN_SIZE) {
+			fillUpLastSquad(previousSquad, currentSquad);
+		}
+		currentSquad = null;
+		previousSquad = null;
+	}
+
+	/**
+	 * Merges the last squad into the previous one, if both fit into one squad.
+	 * Otherwise, members of the previous squad move to the last squad until it has
+	 * {@link RaidSquad#MIN_SIZE} members, which leaves the previous squad with more
+	 * than that.
+	 *
+	 * @param previous the squad formed before the last one
+	 * @param last     the last squad, which has less than
+	 *                 {@link RaidSquad#MIN_SIZE} members
+	 */
+	private void fillUpLastSquad(RaidSquad previous, RaidSquad last) {
+		if (previous.size() + last.size() <= RaidSquad.MAX_SIZE) {
+			while (!last.isEmpty()) {
+				moveMember(last.removeLastMember(), previous);
+			}
+			return;
+		}
+		while (last.size() < RaidSquad.MIN_SIZE) {
+			moveMember(previous.removeLastMember(), last);
+		}
+	}
+
+	private void moveMember(Mob mob, RaidSquad squad) {
+		squad.add(mob);
+		squadsById.put(mob.getId(), squad);
+	}
+
+	/**
+	 * @param entity the entity to check, may be null
+	 * @return the squad of the given entity or null, if it is not part of a squad
+	 */
+	@Nullable
+	public RaidSquad getSquad(Entity entity) {
+		if (entity == null) {
+			return null;
+		}
+		return squadsById.get(entity.getId());
+	}
+
+	/**
+	 * Removes the given entity from its squad, e.g. when it died.
+	 *
+	 * @param entity the entity to remove
+	 */
+	public void remove(Entity entity) {
+		RaidSquad squad = squadsById.remove(entity.getId());
+		if (squad == null) {
+			return;
+		}
+		squad.remove((Mob) entity);
+		if (squad == currentSquad && squad.isEmpty()) {
+			currentSquad = null;
+		}
+		if (squad == previousSquad && squad.isEmpty()) {
+			previousSquad = null;
+		}
+	}
+
+	/**
+	 * Removes all squads.
+	 */
+	public void clear() {
+		squadsById.clear();
+		currentSquad = null;
+		previousSquad = null;
+	}
+
+	private boolean canJoinCurrentSquad(EntityType<?> entityType) {
+		return currentSquad != null && !currentSquad.isFull() && currentSquad.getLeader() != null
+				&& canFormSquad(entityType);
+	}
+
+	/**
+	 * Only mobs walking on the ground move in formation.
+	 */
+	private static boolean canFormSquad(EntityType<?> entityType) {
+		return SpawnPlacements.getPlacementType(entityType) == SpawnPlacements.Type.ON_GROUND;
+	}
+}
@@ -0,0 +1,144 @@
+package may.baseraids.entities.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntitySelector;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.ai.targeting.TargetingConditions;
+import net.minecraft.world.entity.player.Player;
+
+/**
+ * This class shares the search for player targets between raid mobs. For each
+ * coarse cell of the arena that contains the eyes of a raid mob, the players
+ * that can be seen from that cell are computed once and reused by all mobs in
+ * the cell for {@link #UPDATE_INTERVAL} ticks. Thus, the mobs do not have to
+ * scan for players and cast their own rays.
+ * <p>
+ * The rays of a cell start at the eyes of the first mob that looks up the
+ * cell, which is close enough for the other mobs in the cell.
+ *
+ * @author Natascha May
+ */
+public class RaidTargetIndex {
+
+	/** The size of the coarse cells is {@code 1 << CELL_SHIFT} blocks */
+	private static final int CELL_SHIFT = 2;
+	/** The number of ticks the visible players of a cell are reused */
+	private static final int UPDATE_INTERVAL = 10;
+	/** Players further away from a cell are not considered visible */
+	private static final double MAX_DISTANCE = 64;
+	/** Outdated cells are removed when the index grows beyond this size */
+	private static final int PURGE_SIZE = 1024;
+
+	private final Long2ObjectOpenHashMap<Cell> cells = new Long2ObjectOpenHashMap<>();
+	private final RaidRaycastCache raycastCache;
+
+	public RaidTargetIndex(RaidRaycastCache raycastCache) {
+		this.raycastCache = raycastCache;
+	}
+
+	/**
+	 * Finds the closest player that the given mob can see and that matches the
+	 * given conditions. The conditions are expected to ignore the line of sight,
+	 * since the visibility is taken from the index. Otherwise they apply like for
+	 * the vanilla {@link net.minecraft.world.entity.ai.goal.target.NearestAttackableTargetGoal},
+	 * e.g. the range is reduced for invisible players or players wearing the head
+	 * of the mob.
+	 *
+	 * @param mob        the mob that searches a target
+	 * @param conditions the conditions a target has to match, usually
+	 *                   {@link TargetingConditions#forCombat()} with the follow
+	 *                   distance of the mob as range
+	 * @return the closest visible player or null, if there is none
+	 */
+	@Nullable
+	public Player findTarget(Mob mob, TargetingConditions conditions) {
+		List<Player> visiblePlayers = getCell(mob).visiblePlayers;
+		Player closestPlayer = null;
+		double closestDistanceSqr = Double.MAX_VALUE;
+		for (int i = 0; i < visiblePlayers.size(); i++) {
+			Player player = visiblePlayers.get(i);
+			double distanceSqr = mob.distanceToSqr(player);
+			if (distanceSqr < closestDistanceSqr && conditions.test(mob, player)) {
+				closestPlayer = player;
+				closestDistanceSqr = distanceSqr;
+			}
+		}
+		return closestPlayer;
+	}
+
+	/**
+	 * @param mob    the mob that looks at the target
+	 * @param target the target to check
+	 * @return true, if the target is a player visible from the cell of the mob
+	 */
+	public boolean canSee(Mob mob, Entity target) {
+		return getCell(mob).visiblePlayers.contains(target);
+	}
+
+	/**
+	 * Removes all cells.
+	 */
+	public void clear() {
+		cells.clear();
+	}
+
+	/**
+	 * Returns the cell that contains the eyes of the given mob and updates it, if
+	 * it is outdated.
+	 */
+	private Cell getCell(Mob mob) {
+		long key = BlockPos.asLong(Mth.floor(mob.getX()) >> CELL_SHIFT, Mth.floor(mob.getEyeY()) >> CELL_SHIFT,
+				Mth.floor(mob.getZ()) >> CELL_SHIFT);
+		long gameTime = mob.level.getGameTime();
+
+		Cell cell = cells.get(key);
+		if (cell == null) {
+			if (cells.size() >= PURGE_SIZE) {
+				cells.values().removeIf(entry -> gameTime - entry.updateTime >= UPDATE_INTERVAL);
+			}
+			cell = new Cell();
+			cells.put(key, cell);
+		} else if (gameTime - cell.updateTime < UPDATE_INTERVAL) {
+			return cell;
+		}
+
+		cell.updateTime = gameTime;
+		cell.visiblePlayers.clear();
+		for (Player player : mob.level.players()) {
+			if (!EntitySelector.NO_CREATIVE_OR_SPECTATOR.test(player) || !player.isAlive()) {
+				continue;
+			}
+			if (mob.distanceToSqr(player) > MAX_DISTANCE * MAX_DISTANCE) {
+				continue;
+			}
+			if (isVisible(mob, player)) {
+				cell.visiblePlayers.add(player);
+			}
+		}
+		return cell;
+	}
+
+	/**
+	 * Checks if the eyes of the player can be seen from the eyes of the mob, like
+	 * {@link net.minecraft.world.entity.LivingEntity#hasLineOfSight(Entity)}.
+	 */
+	private boolean isVisible(Mob mob, Player player) {
+		long hitPos = raycastCache.clip(mob, mob.getX(), mob.getEyeY(), mob.getZ(), player.getX(), player.getEyeY(),
+				player.getZ());
+		// a missed ray returns the block at its end, which holds the eyes of the player
+		return hitPos == BlockPos.asLong(Mth.floor(player.getX()), Mth.floor(player.getEyeY()), Mth.floor(player.getZ()));
+	}
+
+	private static class Cell {
+		private long updateTime;
+		private final List<Player> visiblePlayers = new ArrayList<>(2);
+	}
+}
@@ -3,18 +3,19 @@ package may.baseraids.entities.ai.goal;
 import java.util.EnumSet;
 import java.util.Random;
 
-import may.baseraids.Baseraids;
 import may.baseraids.RaidManager;
+import may.baseraids.entities.RaidEliteManager;
+import may.baseraids.entities.ai.NexusFlowField;
+import may.baseraids.entities.ai.RaidAILevelOfDetail;
+import may.baseraids.entities.ai.RaidRaycastCache;
+import may.baseraids.entities.ai.RaidSiegePlanner;
+import may.baseraids.entities.ai.RaidSquad;
 import may.baseraids.nexus.NexusBlock;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.ai.goal.Goal;
-import net.minecraft.world.level.ClipContext;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.pathfinder.Path;
-import net.minecraft.world.phys.BlockHitResult;
-import net.minecraft.world.phys.HitResult;
-import net.minecraft.world.phys.Vec3;
 
 /**
  * This class defines an abstract AI goal to attack blocks that are in the way
@@ -29,8 +30,15 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 
 	protected BlockPos target = null;
 	protected int findTargetTicks = 0;
+	/** The block breaking damage is multiplied by this, see {@link RaidEliteManager} */
+	protected final int damageMultiplier;
+	/** Gates {@link #canUse()} and {@link #tick()} by the level of detail of the entity */
+	protected final RaidAILevelOfDetail.TickGate canUseGate;
+	protected final RaidAILevelOfDetail.TickGate tickGate;
 
 	private Random rand = new Random();
+	/** Reused by {@link #getFocusedBlock()} to avoid allocations */
+	private final BlockPos.MutableBlockPos focusedBlock = new BlockPos.MutableBlockPos();
 
 	protected static final int MELEE_DAMAGE = 1;
 	protected static final float MELEE_ATTACK_RANGE = 3f;
@@ -41,11 +49,32 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 	protected AttackBlockGoal(T entity, RaidManager raidManager) {
 		this.entity = entity;
 		this.raidManager = raidManager;
+		this.damageMultiplier = RaidEliteManager.getEliteWeight(entity);
+		this.canUseGate = raidManager.aiLevelOfDetail.createTickGate(entity);
+		this.tickGate = raidManager.aiLevelOfDetail.createTickGate(entity);
 		this.setFlags(EnumSet.of(Goal.Flag.TARGET, Goal.Flag.LOOK));
 	}
 
 	@Override
 	public boolean canUse() {
+		if (!canUseGate.pass()) {
+			return false;
+		}
+		return canAttackBlocks();
+	}
+
+	@Override
+	public boolean canContinueToUse() {
+		return canAttackBlocks();
+	}
+
+	/**
+	 * Checks whether the entity should attack blocks right now. Unlike
+	 * {@link #canUse()}, this is not limited by the level of detail of the entity.
+	 * 
+	 * @return true, if the entity should attack blocks
+	 */
+	protected boolean canAttackBlocks() {
 		if (!raidManager.isRaidActive()) {
 			return false;
 		}
@@ -72,8 +101,15 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 		return true;
 	}
 
+	/**
+	 * Attacks the target or searches for a target. Entities with a reduced level
+	 * of detail only do this every few ticks, see {@link RaidAILevelOfDetail}.
+	 */
 	@Override
 	public void tick() {
+		if (!tickGate.pass()) {
+			return;
+		}
 		if (target != null) {
 			attackTarget();
 			findTargetTicks = 0;
@@ -89,7 +125,7 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 	 */
 	protected void attackTarget() {
 		entity.setAggressive(true);
-		entity.getLookControl().setLookAt(Baseraids.getVector3dFromBlockPos(target));
+		entity.getLookControl().setLookAt(target.getX(), target.getY(), target.getZ());
 	}
 
 	/**
@@ -101,7 +137,8 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 	protected void attackBlockMelee(BlockPos targetBlock) {
 		swingArmAtRandom();
 
-		boolean wasBroken = raidManager.globalBlockBreakProgressMng.addProgress(target, MELEE_DAMAGE);
+		boolean wasBroken = raidManager.globalBlockBreakProgressMng.addProgress(target,
+				MELEE_DAMAGE * damageMultiplier * tickGate.getPassedCalls());
 		if (wasBroken) {
 			entity.getNavigation().recomputePath();
 			target = null;
@@ -110,15 +147,56 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 
 	/**
 	 * Attempts to find a target block and saves the result in the field
-	 * {@link #target}. Prioritizes the nexus direction, otherwise jitters the
-	 * look direction of the entity to find a possible target.
+	 * {@link #target}. Followers of a {@link RaidSquad} do not search on their
+	 * own, but attack the block their leader attacks. The target found by a
+	 * leader is shared with its squad.
 	 */
 	protected void findTarget() {
-		entity.getLookControl().setLookAt(Baseraids.getVector3dFromBlockPos(NexusBlock.getBlockPos()));
+		RaidSquad squad = raidManager.raidSquadMng.getSquad(entity);
+		if (squad != null && !squad.isLeader(entity)) {
+			BlockPos leaderTarget = squad.getTargetBlock();
+			target = leaderTarget != null && isAttackableBlock(leaderTarget) ? leaderTarget : null;
+			return;
+		}
+
+		searchTarget();
+		if (squad != null) {
+			squad.setTargetBlock(target);
+		}
+	}
+
+	/**
+	 * Searches for a target block and saves the result in the field
+	 * {@link #target}. Prioritizes the breach target assigned by the
+	 * {@link RaidSiegePlanner}, then the wall that blocks the way along the
+	 * {@link NexusFlowField}, then the nexus direction. Only if the field does not
+	 * cover the position of the entity yet, the look direction of the entity is
+	 * jittered to find a possible target.
+	 */
+	private void searchTarget() {
+		BlockPos breachTarget = raidManager.siegePlanner.getBreachTarget(entity);
+		if (breachTarget != null && isAttackableBlock(breachTarget)) {
+			target = breachTarget;
+			return;
+		}
+
+		BlockPos blockToBreak = raidManager.nexusFlowField.getBlockToBreak(entity.blockPosition());
+		if (blockToBreak != null && isAttackableBlock(blockToBreak)) {
+			target = blockToBreak;
+			return;
+		}
+
+		BlockPos nexusPos = NexusBlock.getBlockPos();
+		entity.getLookControl().setLookAt(nexusPos.getX(), nexusPos.getY(), nexusPos.getZ());
 		BlockPos focusedBlock = getFocusedBlock();
 
 		if (isAttackableBlock(focusedBlock)) {
-			target = focusedBlock;
+			target = focusedBlock.immutable();
+			return;
+		}
+
+		if (raidManager.nexusFlowField.isCovered(entity.blockPosition())) {
+			target = null;
 			return;
 		}
 
@@ -126,24 +204,26 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 		focusedBlock = getFocusedBlock();
 
 		if (isAttackableBlock(focusedBlock)) {
-			target = focusedBlock;
+			target = focusedBlock.immutable();
 			return;
 		}
 		target = null;
 	}
 
 	/**
-	 * Gets the first block in the look direction of the entity.
+	 * Gets the first block in the look direction of the entity. The ray is shared
+	 * with other checks in the same tick using the {@link RaidRaycastCache}.
+	 * <p>
+	 * The returned position is reused by the next call of this method, so it has
+	 * to be copied using {@link BlockPos#immutable()} to be kept.
 	 * 
 	 * @return the BlockPos of the first block in the look direction
 	 */
 	protected BlockPos getFocusedBlock() {
-		Vec3 posVec = new Vec3(entity.getLookControl().getWantedX(), entity.getLookControl().getWantedY(),
+		long hitPos = raidManager.raycastCache.clip(entity, entity.getX(), entity.getEyeY(), entity.getZ(),
+				entity.getLookControl().getWantedX(), entity.getLookControl().getWantedY(),
 				entity.getLookControl().getWantedZ());
-		
-		BlockHitResult rayTraceResult = entity.level.clip(new ClipContext(entity.getEyePosition(), posVec, ClipContext.Block.COLLIDER,
-				ClipContext.Fluid.NONE, entity));
-		return rayTraceResult.getBlockPos();
+		return focusedBlock.set(hitPos);
 	}
 
 	/**
@@ -153,8 +233,7 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 	 * @return true, if the block is in melee range, otherwise false
 	 */
 	protected boolean isBlockInMeleeRange(BlockPos pos) {
-		return entity
-				.distanceToSqr(Baseraids.getVector3dFromBlockPos(pos)) <= (MELEE_ATTACK_RANGE * MELEE_ATTACK_RANGE);
+		return entity.distanceToSqr(pos.getX(), pos.getY(), pos.getZ()) <= (MELEE_ATTACK_RANGE * MELEE_ATTACK_RANGE);
 	}
 
 	/**
@@ -164,7 +243,7 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 	 * @return true, if the block is attackable, otherwise false
 	 */
 	protected boolean isAttackableBlock(BlockPos pos) {
-		if (entity.level.getBlockState(pos).equals(Blocks.AIR.defaultBlockState())) {
+		if (entity.level.getBlockState(pos).is(Blocks.AIR)) {
 			return false;
 		}
 
@@ -196,9 +275,9 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 	 * new position as the look position of the entity.
 	 */
 	private void jitterLookPositionAroundNexus() {
-		Vec3 jitter = new Vec3(rand.nextDouble(), rand.nextDouble(), rand.nextDouble()).scale(JITTER_FACTOR);
-		Vec3 jitteredLookPos = jitter.add(Baseraids.getVector3dFromBlockPos(NexusBlock.getBlockPos()));
-		entity.getLookControl().setLookAt(jitteredLookPos);
+		BlockPos nexusPos = NexusBlock.getBlockPos();
+		entity.getLookControl().setLookAt(nexusPos.getX() + rand.nextDouble() * JITTER_FACTOR,
+				nexusPos.getY() + rand.nextDouble() * JITTER_FACTOR, nexusPos.getZ() + rand.nextDouble() * JITTER_FACTOR);
 	}
 
 	/**
@@ -208,8 +287,8 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 	 * @return true, if the block is closer, otherwise false
 	 */
 	private boolean isBlockCloserToNexusThanEntityToNexus(BlockPos pos) {
-		return pos.distSqr(NexusBlock.getBlockPos()) <= entity.position()
-				.distanceToSqr(Baseraids.getVector3dFromBlockPos(NexusBlock.getBlockPos()));
+		BlockPos nexusPos = NexusBlock.getBlockPos();
+		return pos.distSqr(nexusPos) <= entity.distanceToSqr(nexusPos.getX(), nexusPos.getY(), nexusPos.getZ());
 	}
 
 	/**
@@ -220,20 +299,16 @@ public abstract class AttackBlockGoal<T extends Mob> extends Goal {
 	 * @return true, if the block can be seen, otherwise false
 	 */
 	public boolean hasLineOfSight(BlockPos pos) {
-		entity.getSensing().hasLineOfSight(entity);
-		Vec3 posVec = Baseraids.getVector3dFromBlockPos(pos);
-		Vec3 vec3 = new Vec3(entity.getX(), entity.getEyeY(), entity.getZ());
-		if (posVec.distanceTo(entity.getEyePosition()) > 128.0D) {
+		double dx = pos.getX() - entity.getX();
+		double dy = pos.getY() - entity.getEyeY();
+		double dz = pos.getZ() - entity.getZ();
+		if (dx * dx + dy * dy + dz * dz > 128.0D * 128.0D) {
 			return false;
-		} else {
-			BlockHitResult rayTraceResult = entity.level.clip(new ClipContext(vec3, posVec, ClipContext.Block.COLLIDER,
-					ClipContext.Fluid.NONE, entity));
-			if(rayTraceResult.getType() == HitResult.Type.MISS) {
-				return true;
-			}			
-			return rayTraceResult.getType() == HitResult.Type.BLOCK && rayTraceResult.getBlockPos().equals(pos);
 		}
-
+		// a missed ray returns the block at its end, which is the given block as well
+		long hitPos = raidManager.raycastCache.clip(entity, entity.getX(), entity.getEyeY(), entity.getZ(), pos.getX(),
+				pos.getY(), pos.getZ());
+		return hitPos == pos.asLong();
 	}
 
 }
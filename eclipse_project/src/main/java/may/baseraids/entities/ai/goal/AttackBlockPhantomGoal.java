@@ -20,7 +20,7 @@ public class AttackBlockPhantomGoal extends AttackBlockGoal<Phantom> {
 	}
 
 	@Override
-	public boolean canUse() {
+	protected boolean canAttackBlocks() {
 		if (!raidManager.isRaidActive()) {
 			return false;
 		}
@@ -47,6 +47,20 @@ public class AttackBlockPhantomGoal extends AttackBlockGoal<Phantom> {
 		entity.attackPhase = Phantom.AttackPhase.CIRCLE;
 	}
 
+	/**
+	 * A swooping phantom is always ticked at full detail, so that it does not
+	 * miss its target.
+	 */
+	@Override
+	public void tick() {
+		if (entity.attackPhase == Phantom.AttackPhase.SWOOP && target != null) {
+			attackTarget();
+			findTargetTicks = 0;
+			return;
+		}
+		super.tick();
+	}
+
 	public void attackBlockPhantom() {
 		if(entity.attackPhase == Phantom.AttackPhase.CIRCLE) {
 			pickAttack();
@@ -58,12 +72,15 @@ public class AttackBlockPhantomGoal extends AttackBlockGoal<Phantom> {
 	
 	private void pickAttack() {
 		if (entity.attackPhase == Phantom.AttackPhase.CIRCLE) {
-			--this.tickDelay;
+			this.tickDelay -= tickGate.getPassedCalls();
 			if (this.tickDelay <= 0) {
 				entity.attackPhase = Phantom.AttackPhase.SWOOP;
 				this.setOrbitPositionForSwoopPhase();
 				this.tickDelay = 80 + rand.nextInt(1200);
-				entity.playSound(SoundEvents.PHANTOM_SWOOP, 10.0F, 0.95F + rand.nextFloat() * 0.1F);
+				if (!entity.isSilent()) {
+					raidManager.soundMixer.play(entity.getX(), entity.getY(), entity.getZ(), SoundEvents.PHANTOM_SWOOP,
+							entity.getSoundSource(), 10.0F, 0.95F + rand.nextFloat() * 0.1F);
+				}
 			}
 		}
 	}
@@ -74,7 +91,7 @@ public class AttackBlockPhantomGoal extends AttackBlockGoal<Phantom> {
         entity.setBoundingBox(originalBB.inflate(0.2F));
         if (entity.horizontalCollision && touchingTarget()) {
            
-           boolean wasBroken = raidManager.globalBlockBreakProgressMng.addProgress(target, PHANTOM_DAMAGE);		
+           boolean wasBroken = raidManager.globalBlockBreakProgressMng.addProgress(target, PHANTOM_DAMAGE * damageMultiplier);		
 			if(wasBroken) {
 				target = null;
 			}				
@@ -1,16 +1,21 @@
 package may.baseraids.entities.ai.goal;
 
+import java.util.function.Predicate;
+
 import may.baseraids.RaidManager;
 import may.baseraids.entities.ai.RaidArrow;
 import net.minecraft.core.BlockPos;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.world.InteractionHand;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.monster.Monster;
 import net.minecraft.world.entity.monster.RangedAttackMob;
 import net.minecraft.world.entity.projectile.AbstractArrow;
 import net.minecraft.world.entity.projectile.ProjectileUtil;
 import net.minecraft.world.item.BowItem;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Blocks;
 
 /**
  * This class defines the AI goal to attack blocks that are in the way towards
@@ -23,6 +28,11 @@ public class AttackBlockRangedGoal<T extends Monster & RangedAttackMob> extends
 	// cooldown in ticks
 	private static final int RANGED_ATTACK_COOLDOWN = 20;	
 	private int rangedAttackRemainingCooldown = 0;
+	/** Arrows further away from all players than this are not sent to any client */
+	private static final double ARROW_TRACKING_RANGE = EntityType.ARROW.clientTrackingRange() * 16.0D;
+	private static final Predicate<Item> IS_BOW = BowItem.class::isInstance;
+	/** Reused by {@link #attackBlockWithHitscan(BlockPos)} to avoid allocations */
+	private final BlockPos.MutableBlockPos hitBlock = new BlockPos.MutableBlockPos();
 
 	public AttackBlockRangedGoal(T entity, RaidManager raidManager) {
 		super(entity, raidManager);
@@ -54,22 +64,47 @@ public class AttackBlockRangedGoal<T extends Monster & RangedAttackMob> extends
 	}
 
 	/**
-	 * Attacks the given block with a ranged attack including animation and sound effects.
+	 * Attacks the given block with a ranged attack including animation and sound
+	 * effects. If no player is close enough to see the arrow, the shot is resolved
+	 * instantly by {@link #attackBlockWithHitscan(BlockPos)} instead of spawning an
+	 * arrow entity.
 	 * @param targetBlock the block to be attacked
 	 */
 	private void attackBlockWithRangedAttack(BlockPos targetBlock) {
+		if (!entity.level.hasNearbyAlivePlayer(entity.getX(), entity.getY(), entity.getZ(), ARROW_TRACKING_RANGE)) {
+			attackBlockWithHitscan(targetBlock);
+			return;
+		}
 		AbstractArrow arrowEntity = createArrowEntity();		
 		shootArrowEntityAtBlock(arrowEntity, targetBlock);
-		entity.playSound(SoundEvents.ARROW_SHOOT, 1.0F, 1.0F / (entity.getRandom().nextFloat() * 0.4F + 0.8F));
+		if (!entity.isSilent()) {
+			raidManager.soundMixer.play(entity.getX(), entity.getY(), entity.getZ(), SoundEvents.ARROW_SHOOT,
+					entity.getSoundSource(), 1.0F, 1.0F / (entity.getRandom().nextFloat() * 0.4F + 0.8F));
+		}
 		entity.level.addFreshEntity(arrowEntity);		
 	}
 	
+	/**
+	 * Shoots a virtual arrow at the given block. A single ray is cast towards the
+	 * block and the first block it hits gets the breaking progress of an arrow
+	 * hit. No arrow entity is spawned and no objects are allocated.
+	 * @param targetBlock the block to be attacked
+	 */
+	private void attackBlockWithHitscan(BlockPos targetBlock) {
+		long hitPos = raidManager.raycastCache.clip(entity, entity.getX(), entity.getEyeY(), entity.getZ(),
+				targetBlock.getX() + 0.5D, targetBlock.getY() + 0.5D, targetBlock.getZ() + 0.5D);
+		if (entity.level.getBlockState(hitBlock.set(hitPos)).is(Blocks.AIR)) {
+			return;
+		}
+		raidManager.globalBlockBreakProgressMng.addProgress(hitPos, RaidArrow.getBlockBreakDamage(entity));
+	}
+	
 	/**
 	 * Creates an {@link AbstractArrowEntity} from ammo held by the entity and adds potion, enchantment and other effects.
 	 * @return the create arrow entity
 	 */
 	private AbstractArrow createArrowEntity() {
-		InteractionHand interactionhand = ProjectileUtil.getWeaponHoldingHand(entity, BowItem.class::isInstance);
+		InteractionHand interactionhand = ProjectileUtil.getWeaponHoldingHand(entity, IS_BOW);
 	    ItemStack itemstack = entity.getItemInHand(interactionhand);
 		RaidArrow arrowEntity = new RaidArrow(entity.level, entity, raidManager);
 		arrowEntity.setEffectsFromItem(itemstack);
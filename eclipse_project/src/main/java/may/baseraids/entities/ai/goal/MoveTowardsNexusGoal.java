@@ -3,6 +3,10 @@ package may.baseraids.entities.ai.goal;
 import java.util.EnumSet;
 
 import may.baseraids.RaidManager;
+import may.baseraids.entities.ai.NexusFlowField;
+import may.baseraids.entities.ai.RaidAILevelOfDetail;
+import may.baseraids.entities.ai.RaidPathCache;
+import may.baseraids.entities.ai.RaidSquad;
 import may.baseraids.nexus.NexusBlock;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.entity.Mob;
@@ -19,18 +23,32 @@ public class MoveTowardsNexusGoal<T extends Mob> extends Goal {
 	protected T entity;
 	protected RaidManager raidManager;
 	protected int distanceReached = 2;
+	/** The number of cells of the flow field the entity moves at once */
+	private static final int WAYPOINT_LOOKAHEAD = 8;
+	/** The minimum number of ticks between two path computations */
+	private static final int REPATH_COOLDOWN = 10;
+	/** The entity is off its path, if it is further away from the next node */
+	private static final int MAX_OFF_PATH_DISTANCE_SQR = 16;
+	/** A follower further away from its formation position catches up along a path */
+	private static final double MAX_FORMATION_DISTANCE_SQR = 64;
+
+	private int repathCooldown = 0;
+	/** Gates {@link #canUse()} and {@link #tick()} by the level of detail of the entity */
+	protected final RaidAILevelOfDetail.TickGate canUseGate;
+	protected final RaidAILevelOfDetail.TickGate tickGate;
+	/** The version of the current path, see {@link NexusFlowField#getPathVersion(Path)} */
+	private long pathVersion = -1;
 
 	public MoveTowardsNexusGoal(T entity, RaidManager raidManager) {
 		this.entity = entity;
 		this.raidManager = raidManager;
+		this.canUseGate = raidManager.aiLevelOfDetail.createTickGate(entity);
+		this.tickGate = raidManager.aiLevelOfDetail.createTickGate(entity);
 		this.setFlags(EnumSet.of(Goal.Flag.MOVE));
 	}
 
 	public boolean canUse() {
-		BlockPos nexusPos = NexusBlock.getBlockPos();
-
-		if (entity.getTarget() != null || !raidManager.isRaidActive()
-				|| entity.distanceToSqr(nexusPos.getX(), nexusPos.getY(), nexusPos.getZ()) < distanceReached) {
+		if (!canUseGate.pass() || !canContinueToUse()) {
 			return false;
 		}
 
@@ -39,9 +57,113 @@ public class MoveTowardsNexusGoal<T extends Mob> extends Goal {
 	}
 
 	@Override
-	public void tick() {
+	public boolean canContinueToUse() {
 		BlockPos nexusPos = NexusBlock.getBlockPos();
-		entity.getNavigation().moveTo(nexusPos.getX(), nexusPos.getY(), nexusPos.getZ(), 1);
+		return entity.getTarget() == null && raidManager.isRaidActive()
+				&& entity.distanceToSqr(nexusPos.getX(), nexusPos.getY(), nexusPos.getZ()) >= distanceReached;
+	}
+
+	@Override
+	public void start() {
+		repathCooldown = 0;
+	}
+
+	/**
+	 * Moves the entity along the {@link NexusFlowField} towards the nexus. Only
+	 * the short path to the next waypoint is computed and it is only recomputed
+	 * if {@link #shouldRepath()} says so. Followers of a {@link RaidSquad} follow
+	 * their leader instead. Entities with a reduced level of detail only do this
+	 * every few ticks, see {@link RaidAILevelOfDetail}.
+	 */
+	@Override
+	public void tick() {
+		if (!tickGate.pass()) {
+			return;
+		}
+		if (repathCooldown > 0) {
+			repathCooldown -= tickGate.getPassedCalls();
+		}
+		RaidSquad squad = raidManager.raidSquadMng.getSquad(entity);
+		if (squad != null && !squad.isLeader(entity)) {
+			followLeader(squad);
+			return;
+		}
+		if (shouldRepath()) {
+			repath();
+		}
+	}
+
+	/**
+	 * Decides whether the path of the entity needs to be recomputed. That is the
+	 * case, if the entity has no path, finished its path, moved off its path or
+	 * blocks near its path changed. To avoid recomputing the path in every tick, e.g. when
+	 * the entity is stuck in front of a wall, there is a cooldown between two
+	 * computations.
+	 * 
+	 * @return true, if the path should be recomputed
+	 */
+	private boolean shouldRepath() {
+		if (repathCooldown > 0) {
+			return false;
+		}
+		Path path = entity.getNavigation().getPath();
+		if (path == null || path.isDone()) {
+			return true;
+		}
+		if (pathVersion != raidManager.nexusFlowField.getPathVersion(path)) {
+			return true;
+		}
+		return entity.blockPosition().distSqr(path.getNextNodePos()) > MAX_OFF_PATH_DISTANCE_SQR;
+	}
+
+	/**
+	 * Computes a path to the next waypoint of the {@link NexusFlowField}. If the
+	 * field does not cover the position of the entity yet, the entity navigates
+	 * to the nexus directly. Paths are shared with other mobs nearby using the
+	 * {@link RaidPathCache}.
+	 */
+	private void repath() {
+		repathCooldown = REPATH_COOLDOWN;
+		int lookahead = WAYPOINT_LOOKAHEAD * raidManager.aiLevelOfDetail.getTier(entity).stepMultiplier;
+		BlockPos waypoint = raidManager.nexusFlowField.getWaypoint(entity.blockPosition(), lookahead);
+		if (waypoint == null) {
+			waypoint = NexusBlock.getBlockPos();
+		}
+		Path path = raidManager.raidPathCache.getOrCreatePath(entity, waypoint);
+		if (path != null) {
+			pathVersion = raidManager.nexusFlowField.getPathVersion(path);
+			entity.getNavigation().moveTo(path, 1);
+		}
+	}
+
+	/**
+	 * Moves the entity to its position in the formation of its squad. Close to
+	 * that position, the entity is steered there directly without computing a
+	 * path. Only if it fell behind, it catches up along a path to the leader.
+	 * 
+	 * @param squad the squad the entity follows
+	 */
+	private void followLeader(RaidSquad squad) {
+		Mob leader = squad.getLeader();
+		double x = leader.getX() + squad.getFormationOffsetX(entity);
+		double z = leader.getZ() + squad.getFormationOffsetZ(entity);
+
+		if (entity.distanceToSqr(x, leader.getY(), z) > MAX_FORMATION_DISTANCE_SQR) {
+			if (repathCooldown > 0) {
+				return;
+			}
+			repathCooldown = REPATH_COOLDOWN;
+			Path path = raidManager.raidPathCache.getOrCreatePath(entity, leader.blockPosition());
+			if (path != null) {
+				entity.getNavigation().moveTo(path, 1);
+			}
+			return;
+		}
+
+		if (!entity.getNavigation().isDone()) {
+			entity.getNavigation().stop();
+		}
+		entity.getMoveControl().setWantedPosition(x, leader.getY(), z, 1);
 	}
 
 }
@@ -8,8 +8,6 @@ import net.minecraft.world.entity.monster.Phantom;
 
 public class MoveTowardsNexusPhantomGoal extends MoveTowardsNexusGoal<Phantom> {
 
-	private int tickDelay;
-
 	public MoveTowardsNexusPhantomGoal(Phantom entity, RaidManager raidManager) {
 		super(entity, raidManager);
 		distanceReached = 25;
@@ -24,21 +22,25 @@ public class MoveTowardsNexusPhantomGoal extends MoveTowardsNexusGoal<Phantom> {
 		return !isOrbitPositionCloseEnoughToNexus();
 	}
 
+	@Override
+	public boolean canContinueToUse() {
+		return canUse();
+	}
+
 	@Override
 	public void start() {
-		tickDelay = 20;
+		setOrbitPositionAtNexus();
 	}
 
+	/**
+	 * Only moves the orbit position again, if something else moved it away from
+	 * the nexus since it was set.
+	 */
 	@Override
 	public void tick() {
-		if (tickDelay == 20) {
+		if (!isOrbitPositionCloseEnoughToNexus()) {
 			setOrbitPositionAtNexus();
 		}
-		tickDelay--;
-		if (tickDelay == 0) {
-			tickDelay = 20;
-		}
-
 	}
 
 	@Override
@@ -0,0 +1,464 @@
+package may.baseraids.entities.ai.goal;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import may.baseraids.RaidManager;
+import may.baseraids.entities.ai.RaidTargetIndex;
+import net.minecraft.world.entity.EntitySelector;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import net.minecraft.world.entity.ai.goal.Goal;
+import net.minecraft.world.entity.ai.goal.target.HurtByTargetGoal;
+import net.minecraft.world.entity.ai.goal.target.NearestAttackableTargetGoal;
+import net.minecraft.world.entity.ai.targeting.TargetingConditions;
+import net.minecraft.world.entity.animal.IronGolem;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.GameRules;
+import net.minecraft.world.phys.AABB;
+
+/**
+ * This class defines the single goal of a raid mob. It replaces all goals and
+ * target goals of the mob with a state machine, so that the goal selector only
+ * has to check one goal per mob:
+ * <ul>
+ * <li>{@link State#APPROACH}: the entity moves towards the nexus.</li>
+ * <li>{@link State#BREACH}: the entity attacks a block in its way, while it
+ * keeps checking whether the way is free again.</li>
+ * <li>{@link State#FIGHT}: the entity has a target and fights it with its fight
+ * goals.</li>
+ * <li>{@link State#REGROUP}: the entity finished a fight and drops its old path
+ * before it continues to approach.</li>
+ * </ul>
+ * The goal also chooses the target of the entity like the vanilla target goals
+ * did: it strikes back at attackers that are not raiding and, depending on the
+ * entity type, searches for players and iron golems.
+ * <p>
+ * The fight goals are vanilla attack goals that are only run by this goal and
+ * not by the goal selector. They are ordered by priority: a running fight goal
+ * blocks all later fight goals that share a flag with it.
+ *
+ * @author Natascha May
+ */
+public class RaidBrainGoal<T extends Mob> extends Goal {
+
+	public enum State {
+		APPROACH, BREACH, FIGHT, REGROUP
+	}
+
+	private static final int RANDOM_INTERVAL = 10;
+	/** The number of ticks the entity keeps a target it cannot see */
+	private static final int UNSEEN_MEMORY_TICKS = 60;
+	/** The light level above which entities that only hunt in darkness give up */
+	private static final float MAX_HUNTING_BRIGHTNESS = 0.5F;
+	/** Like the conditions of the vanilla {@link HurtByTargetGoal} */
+	private static final TargetingConditions HURT_BY_TARGETING = TargetingConditions.forCombat().ignoreLineOfSight()
+			.ignoreInvisibilityTesting();
+
+	protected T entity;
+	protected RaidManager raidManager;
+	private final MoveTowardsNexusGoal<T> approachGoal;
+	private final AttackBlockGoal<T> breachGoal;
+	private final Goal[] fightGoals;
+	private final boolean[] fightGoalsRunning;
+	/** Reused by {@link #tickFight()} to collect the flags of the running fight goals */
+	private final EnumSet<Goal.Flag> usedFlags = EnumSet.noneOf(Goal.Flag.class);
+	private State state = State.APPROACH;
+
+	private boolean targetsPlayers = false;
+	private boolean targetsIronGolems = false;
+	private boolean huntsOnlyInDarkness = false;
+	private boolean alertOthers = false;
+	private Class<?>[] toIgnoreAlert = new Class<?>[0];
+	/** Like the vanilla conditions, but the line of sight is checked by the {@link RaidTargetIndex} */
+	private final TargetingConditions playerConditions = TargetingConditions.forCombat().ignoreLineOfSight();
+	/** Like the conditions of the vanilla {@link NearestAttackableTargetGoal} */
+	private final TargetingConditions ironGolemConditions = TargetingConditions.forCombat();
+
+	private int lastHurtByTimestamp = 0;
+	/** The target the entity last saw at {@link #lastSeenTime} */
+	private LivingEntity seenTarget = null;
+	private long lastSeenTime = 0;
+
+	/**
+	 * @param entity       the entity this goal belongs to
+	 * @param raidManager  the raid manager
+	 * @param approachGoal the goal to move towards the nexus
+	 * @param breachGoal   the goal to attack blocks in the way
+	 * @param fightGoals   the goals to fight the target, ordered by priority
+	 */
+	public RaidBrainGoal(T entity, RaidManager raidManager, MoveTowardsNexusGoal<T> approachGoal,
+			AttackBlockGoal<T> breachGoal, Goal... fightGoals) {
+		this.entity = entity;
+		this.raidManager = raidManager;
+		this.approachGoal = approachGoal;
+		this.breachGoal = breachGoal;
+		this.fightGoals = fightGoals;
+		this.fightGoalsRunning = new boolean[fightGoals.length];
+		this.setFlags(EnumSet.of(Goal.Flag.MOVE, Goal.Flag.LOOK));
+	}
+
+	/**
+	 * Lets the entity search for players to attack.
+	 *
+	 * @return this goal
+	 */
+	public RaidBrainGoal<T> targetPlayers() {
+		this.targetsPlayers = true;
+		return this;
+	}
+
+	/**
+	 * Lets the entity search for iron golems to attack.
+	 *
+	 * @return this goal
+	 */
+	public RaidBrainGoal<T> targetIronGolems() {
+		this.targetsIronGolems = true;
+		return this;
+	}
+
+	/**
+	 * Lets the entity only search for targets in darkness and makes it give up
+	 * its target in the light from time to time, like a vanilla spider.
+	 *
+	 * @return this goal
+	 */
+	public RaidBrainGoal<T> huntOnlyInDarkness() {
+		this.huntsOnlyInDarkness = true;
+		return this;
+	}
+
+	/**
+	 * Lets the entity alert nearby entities of its class when it is attacked,
+	 * like {@link HurtByTargetGoal#setAlertOthers(Class...)}.
+	 *
+	 * @param toIgnoreAlert the classes of the entities that are not alerted
+	 * @return this goal
+	 */
+	public RaidBrainGoal<T> setAlertOthers(Class<?>... toIgnoreAlert) {
+		this.alertOthers = true;
+		this.toIgnoreAlert = toIgnoreAlert;
+		return this;
+	}
+
+	/**
+	 * The goal runs as long as the entity lives, since it replaces all other goals.
+	 */
+	@Override
+	public boolean canUse() {
+		return true;
+	}
+
+	@Override
+	public boolean requiresUpdateEveryTick() {
+		// the vanilla fight goals expect to be ticked in every tick
+		return state == State.FIGHT;
+	}
+
+	@Override
+	public void start() {
+		state = State.APPROACH;
+		approachGoal.start();
+	}
+
+	@Override
+	public void stop() {
+		leaveState();
+		state = State.APPROACH;
+	}
+
+	@Override
+	public void tick() {
+		updateTarget();
+		if (entity.getTarget() != null) {
+			if (state != State.FIGHT) {
+				leaveState();
+				state = State.FIGHT;
+			}
+		} else if (state == State.FIGHT) {
+			leaveState();
+			state = State.REGROUP;
+		}
+
+		switch (state) {
+		case REGROUP:
+			regroup();
+			state = State.APPROACH;
+			tickApproach();
+			break;
+		case APPROACH:
+			tickApproach();
+			break;
+		case BREACH:
+			tickBreach();
+			break;
+		case FIGHT:
+		default:
+			tickFight();
+			break;
+		}
+	}
+
+	/**
+	 * @return the current state of the raid goal
+	 */
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * Stops the goals of the current state.
+	 */
+	private void leaveState() {
+		switch (state) {
+		case BREACH:
+			breachGoal.stop();
+			approachGoal.stop();
+			break;
+		case FIGHT:
+			stopFightGoals();
+			break;
+		case APPROACH:
+		case REGROUP:
+		default:
+			approachGoal.stop();
+			break;
+		}
+	}
+
+	/**
+	 * Moves towards the nexus and starts breaching, if a block is in the way.
+	 */
+	private void tickApproach() {
+		if (approachGoal.canContinueToUse()) {
+			approachGoal.tick();
+		}
+		if (breachGoal.canUse()) {
+			breachGoal.start();
+			state = State.BREACH;
+		}
+	}
+
+	/**
+	 * Attacks the block in the way. The approach goal keeps running to notice
+	 * when the way is free again, which ends the breach. Whether the breach goes
+	 * on is evaluated exactly once per tick, since
+	 * {@link AttackBlockGoal#canContinueToUse()} counts the ticks without a
+	 * block to attack.
+	 */
+	private void tickBreach() {
+		if (approachGoal.canContinueToUse()) {
+			approachGoal.tick();
+		}
+		boolean canBreach = breachGoal.canContinueToUse();
+		if (!canBreach) {
+			breachGoal.stop();
+			state = State.APPROACH;
+			return;
+		}
+		breachGoal.tick();
+	}
+
+	/**
+	 * Runs the fight goals like the goal selector would: a fight goal is stopped,
+	 * if it cannot continue or an earlier running fight goal shares a flag with
+	 * it, and started, if it can be used and no earlier running fight goal shares
+	 * a flag with it.
+	 */
+	private void tickFight() {
+		usedFlags.clear();
+		for (int i = 0; i < fightGoals.length; i++) {
+			Goal goal = fightGoals[i];
+			boolean blocked = sharesFlag(goal, usedFlags);
+			if (fightGoalsRunning[i] && (blocked || !goal.canContinueToUse())) {
+				goal.stop();
+				fightGoalsRunning[i] = false;
+			} else if (!fightGoalsRunning[i] && !blocked && goal.canUse()) {
+				goal.start();
+				fightGoalsRunning[i] = true;
+			}
+			if (fightGoalsRunning[i]) {
+				usedFlags.addAll(goal.getFlags());
+				goal.tick();
+			}
+		}
+	}
+
+	private void stopFightGoals() {
+		for (int i = 0; i < fightGoals.length; i++) {
+			if (fightGoalsRunning[i]) {
+				fightGoals[i].stop();
+				fightGoalsRunning[i] = false;
+			}
+		}
+	}
+
+	private static boolean sharesFlag(Goal goal, EnumSet<Goal.Flag> flags) {
+		for (Goal.Flag flag : goal.getFlags()) {
+			if (flags.contains(flag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Drops the path from before the fight, so that the approach starts with a
+	 * new path from the current position.
+	 */
+	private void regroup() {
+		entity.getNavigation().stop();
+		approachGoal.start();
+	}
+
+	/**
+	 * Chooses the target of the entity. The current target is dropped, if the
+	 * entity cannot keep it. An attacker that is not raiding always becomes the
+	 * new target. Without a target, the entity searches for one every few ticks.
+	 */
+	private void updateTarget() {
+		LivingEntity target = entity.getTarget();
+		if (target != null && !canKeepTarget(target)) {
+			entity.setTarget(null);
+			target = null;
+		}
+
+		LivingEntity attacker = findAttacker();
+		if (attacker != null) {
+			entity.setTarget(attacker);
+			if (alertOthers) {
+				alertOthers(attacker);
+			}
+			return;
+		}
+
+		if (target == null && entity.getRandom().nextInt(reducedTickDelay(RANDOM_INTERVAL)) == 0) {
+			LivingEntity newTarget = findTarget();
+			if (newTarget != null) {
+				entity.setTarget(newTarget);
+			}
+		}
+	}
+
+	/**
+	 * Checks the target like {@link net.minecraft.world.entity.ai.goal.target.TargetGoal#canContinueToUse()}
+	 * with {@code mustSee}. The visibility of players is checked using the
+	 * {@link RaidTargetIndex}.
+	 *
+	 * @param target the current target of the entity
+	 * @return true, if the entity keeps the target
+	 */
+	private boolean canKeepTarget(LivingEntity target) {
+		if (!target.isAlive() || !entity.canAttack(target) || entity.isAlliedTo(target)) {
+			return false;
+		}
+		if (target instanceof Player player && player.getAbilities().invulnerable) {
+			return false;
+		}
+		if (huntsOnlyInDarkness && entity.getLightLevelDependentMagicValue() >= MAX_HUNTING_BRIGHTNESS
+				&& entity.getRandom().nextInt(100) == 0) {
+			return false;
+		}
+		double followDistance = getFollowDistance();
+		if (entity.distanceToSqr(target) > followDistance * followDistance) {
+			return false;
+		}
+
+		long gameTime = entity.level.getGameTime();
+		boolean canSee = target instanceof Player ? raidManager.targetIndex.canSee(entity, target)
+				: entity.getSensing().hasLineOfSight(target);
+		if (canSee || target != seenTarget) {
+			seenTarget = target;
+			lastSeenTime = gameTime;
+			return true;
+		}
+		return gameTime - lastSeenTime <= UNSEEN_MEMORY_TICKS;
+	}
+
+	/**
+	 * Checks whether the entity was attacked since the last call like
+	 * {@link HurtByTargetGoal#canUse()}, but ignores attackers that are raiding.
+	 *
+	 * @return the attacker to strike back at or null, if there is none
+	 */
+	private LivingEntity findAttacker() {
+		int timestamp = entity.getLastHurtByMobTimestamp();
+		LivingEntity attacker = entity.getLastHurtByMob();
+		if (timestamp == lastHurtByTimestamp || attacker == null) {
+			return null;
+		}
+		lastHurtByTimestamp = timestamp;
+
+		if (attacker.getType() == EntityType.PLAYER
+				&& entity.level.getGameRules().getBoolean(GameRules.RULE_UNIVERSAL_ANGER)) {
+			return null;
+		}
+		if (raidManager.isEntityRaiding(attacker)) {
+			return null;
+		}
+		return HURT_BY_TARGETING.test(entity, attacker) ? attacker : null;
+	}
+
+	/**
+	 * Lets nearby entities of the class of this entity attack the given attacker,
+	 * like {@link HurtByTargetGoal} does.
+	 *
+	 * @param attacker the entity that attacked this entity
+	 */
+	private void alertOthers(LivingEntity attacker) {
+		double followDistance = getFollowDistance();
+		AABB area = AABB.unitCubeFromLowerCorner(entity.position()).inflate(followDistance, 10.0D, followDistance);
+		List<? extends Mob> others = entity.level.getEntitiesOfClass(entity.getClass(), area,
+				EntitySelector.NO_SPECTATORS);
+		for (Mob other : others) {
+			if (other != entity && other.getTarget() == null && !other.isAlliedTo(attacker)
+					&& !isIgnoredByAlert(other)) {
+				other.setTarget(attacker);
+			}
+		}
+	}
+
+	private boolean isIgnoredByAlert(Mob other) {
+		for (Class<?> clazz : toIgnoreAlert) {
+			if (other.getClass() == clazz) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Searches for a new target. Players are looked up in the
+	 * {@link RaidTargetIndex} and checked against the vanilla combat conditions,
+	 * iron golems are searched like {@link NearestAttackableTargetGoal} does.
+	 *
+	 * @return the new target or null, if there is none
+	 */
+	private LivingEntity findTarget() {
+		if (huntsOnlyInDarkness && entity.getLightLevelDependentMagicValue() >= MAX_HUNTING_BRIGHTNESS) {
+			return null;
+		}
+		double followDistance = getFollowDistance();
+		if (targetsPlayers) {
+			playerConditions.range(followDistance);
+			Player player = raidManager.targetIndex.findTarget(entity, playerConditions);
+			if (player != null) {
+				return player;
+			}
+		}
+		if (targetsIronGolems) {
+			ironGolemConditions.range(followDistance);
+			return entity.level.getNearestEntity(IronGolem.class, ironGolemConditions, entity, entity.getX(),
+					entity.getEyeY(), entity.getZ(), entity.getBoundingBox().inflate(followDistance, 4.0D, followDistance));
+		}
+		return null;
+	}
+
+	private double getFollowDistance() {
+		return entity.getAttributeValue(Attributes.FOLLOW_RANGE);
+	}
+
+}
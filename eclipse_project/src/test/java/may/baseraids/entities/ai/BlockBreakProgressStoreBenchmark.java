@@ -0,0 +1,159 @@
+package may.baseraids.entities.ai;
+
+import java.lang.ref.Reference;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.core.BlockPos;
+
+/**
+ * This class benchmarks the {@link BlockBreakProgressStore} against the map of
+ * one progress object per block it replaced. The benchmarks use more than
+ * 10,000 damaged blocks, which is what a large raid on a big base reaches.
+ * <p>
+ * The measurements depend on the machine and the garbage collector, so the
+ * benchmarks only report their numbers and never fail. They are excluded from
+ * the {@code test} task and run by the {@code benchmark} task.
+ *
+ * @author Natascha May
+ */
+@Tag("benchmark")
+class BlockBreakProgressStoreBenchmark {
+
+	private static final int BLOCKS = 100_000;
+	private static final int HITS = 2_000_000;
+	private static final int BENCHMARK_RUNS = 5;
+	private static final int DAMAGE_TO_BREAK = 1_000_000;
+
+	/**
+	 * The progress of one block as it was stored before the
+	 * {@link BlockBreakProgressStore}: one object per block in a
+	 * {@link ConcurrentHashMap} keyed by the {@link BlockPos}.
+	 */
+	private static final class LegacyProgress {
+		@SuppressWarnings("unused")
+		private final BlockPos pos;
+		private int progress = 0;
+		private int relativeProgress = 0;
+		private final int damageToBreak;
+		@SuppressWarnings("unused")
+		private final int breakerId;
+
+		LegacyProgress(BlockPos pos, int damageToBreak, int breakerId) {
+			this.pos = pos;
+			this.damageToBreak = damageToBreak;
+			this.breakerId = breakerId;
+		}
+	}
+
+	@Test
+	void memoryForManyBlocks() {
+		long[] positions = BlockBreakProgressStoreTest.createPositions(BLOCKS);
+
+		long before = getUsedMemory();
+		BlockBreakProgressStore store = new BlockBreakProgressStore();
+		for (long pos : positions) {
+			store.add(pos, DAMAGE_TO_BREAK);
+		}
+		long storeBytes = getUsedMemory() - before;
+		Reference.reachabilityFence(store);
+
+		before = getUsedMemory();
+		ConcurrentHashMap<BlockPos, LegacyProgress> map = new ConcurrentHashMap<>();
+		for (long pos : positions) {
+			BlockPos blockPos = BlockPos.of(pos);
+			map.put(blockPos, new LegacyProgress(blockPos, DAMAGE_TO_BREAK, map.size()));
+		}
+		long mapBytes = getUsedMemory() - before;
+		Reference.reachabilityFence(map);
+
+		System.out.printf("Memory for %d blocks: store %d bytes, map %d bytes%n", BLOCKS, storeBytes, mapBytes);
+	}
+
+	@Test
+	void addProgressForManyBlocks() {
+		long[] positions = BlockBreakProgressStoreTest.createPositions(BLOCKS);
+		int[] hits = createHits(HITS, BLOCKS);
+
+		long storeNanos = Long.MAX_VALUE;
+		long mapNanos = Long.MAX_VALUE;
+		// the first run warms up both implementations
+		for (int run = 0; run <= BENCHMARK_RUNS; run++) {
+			long start = System.nanoTime();
+			BlockBreakProgressStore store = new BlockBreakProgressStore();
+			addProgress(store, positions, hits);
+			long nanos = System.nanoTime() - start;
+			if (run > 0) {
+				storeNanos = Math.min(storeNanos, nanos);
+			}
+
+			start = System.nanoTime();
+			ConcurrentHashMap<BlockPos, LegacyProgress> map = new ConcurrentHashMap<>();
+			addProgress(map, positions, hits);
+			nanos = System.nanoTime() - start;
+			if (run > 0) {
+				mapNanos = Math.min(mapNanos, nanos);
+			}
+		}
+
+		System.out.printf("Time for %d hits on %d blocks (best of %d): store %d ns, map %d ns%n", HITS, BLOCKS,
+				BENCHMARK_RUNS, storeNanos, mapNanos);
+	}
+
+	/**
+	 * Adds progress like {@link GlobalBlockBreakProgressManager#addProgress(long, int)}.
+	 */
+	private static void addProgress(BlockBreakProgressStore store, long[] positions, int[] hits) {
+		for (int hit : hits) {
+			long pos = positions[hit];
+			int index = store.indexOf(pos);
+			if (index < 0) {
+				index = store.add(pos, DAMAGE_TO_BREAK);
+			}
+			int progress = store.getProgress(index) + 1;
+			store.setProgress(index, progress);
+			store.setRelativeProgress(index, progress * 10 / store.getDamageToBreak(index));
+		}
+	}
+
+	/**
+	 * Adds progress like the map of progress objects did before the
+	 * {@link BlockBreakProgressStore}.
+	 */
+	private static void addProgress(ConcurrentHashMap<BlockPos, LegacyProgress> map, long[] positions, int[] hits) {
+		for (int hit : hits) {
+			BlockPos pos = BlockPos.of(positions[hit]);
+			LegacyProgress progress = map.computeIfAbsent(pos,
+					p -> new LegacyProgress(p, DAMAGE_TO_BREAK, map.size()));
+			progress.progress++;
+			progress.relativeProgress = progress.progress * 10 / progress.damageToBreak;
+		}
+	}
+
+	/**
+	 * @return the memory used by reachable objects in bytes, which is only an
+	 *         estimate, since {@link System#gc()} is a hint
+	 */
+	private static long getUsedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * @return random indices of the blocks that are hit
+	 */
+	private static int[] createHits(int count, int blocks) {
+		Random random = new Random(0);
+		int[] hits = new int[count];
+		for (int i = 0; i < count; i++) {
+			hits[i] = random.nextInt(blocks);
+		}
+		return hits;
+	}
+}
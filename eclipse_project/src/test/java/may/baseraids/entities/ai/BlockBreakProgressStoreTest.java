@@ -0,0 +1,168 @@
+package may.baseraids.entities.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.core.BlockPos;
+
+/**
+ * This class tests the {@link BlockBreakProgressStore}, especially removing
+ * blocks and reusing their breaker ids. The store is compared with the map it
+ * replaced by {@link BlockBreakProgressStoreBenchmark}.
+ *
+ * @author Natascha May
+ */
+class BlockBreakProgressStoreTest {
+
+	private static final int DAMAGE_TO_BREAK = 1_000_000;
+
+	@Test
+	void removeMovesLastBlockIntoGap() {
+		BlockBreakProgressStore store = new BlockBreakProgressStore();
+		long[] positions = createPositions(10);
+		for (long pos : positions) {
+			store.add(pos, DAMAGE_TO_BREAK);
+		}
+		int lastIndex = store.indexOf(positions[9]);
+		store.setProgress(lastIndex, 42);
+		int lastBreakerId = store.getBreakerId(lastIndex);
+
+		store.remove(store.indexOf(positions[3]));
+
+		assertEquals(-1, store.indexOf(positions[3]));
+		assertEquals(9, store.size());
+		int movedIndex = store.indexOf(positions[9]);
+		assertEquals(3, movedIndex);
+		assertEquals(positions[9], store.getPos(movedIndex));
+		assertEquals(42, store.getProgress(movedIndex));
+		assertEquals(lastBreakerId, store.getBreakerId(movedIndex));
+		assertConsistent(store);
+	}
+
+	@Test
+	void removeLastBlock() {
+		BlockBreakProgressStore store = new BlockBreakProgressStore();
+		long[] positions = createPositions(3);
+		for (long pos : positions) {
+			store.add(pos, DAMAGE_TO_BREAK);
+		}
+
+		store.remove(store.indexOf(positions[2]));
+
+		assertEquals(-1, store.indexOf(positions[2]));
+		assertEquals(2, store.size());
+		assertConsistent(store);
+	}
+
+	@Test
+	void readdedBlockReusesBreakerId() {
+		BlockBreakProgressStore store = new BlockBreakProgressStore();
+		long[] positions = createPositions(5);
+		for (long pos : positions) {
+			store.add(pos, DAMAGE_TO_BREAK);
+		}
+		int breakerId = store.getBreakerId(store.indexOf(positions[1]));
+
+		store.remove(store.indexOf(positions[1]));
+		int index = store.add(positions[1], DAMAGE_TO_BREAK);
+
+		assertEquals(index, store.indexOf(positions[1]));
+		assertEquals(positions[1], store.getPos(index));
+		assertEquals(0, store.getProgress(index));
+		assertEquals(breakerId, store.getBreakerId(index));
+		assertConsistent(store);
+	}
+
+	@Test
+	void breakerIdsAreNegativeAndLeaveOutNexusId() {
+		BlockBreakProgressStore store = new BlockBreakProgressStore();
+		for (long pos : createPositions(100)) {
+			int breakerId = store.getBreakerId(store.add(pos, DAMAGE_TO_BREAK));
+			assertTrue(breakerId < 0);
+			assertNotEquals(-1, breakerId);
+		}
+	}
+
+	@Test
+	void clearResetsBreakerIds() {
+		BlockBreakProgressStore store = new BlockBreakProgressStore();
+		long[] positions = createPositions(10);
+		int firstBreakerId = store.getBreakerId(store.add(positions[0], DAMAGE_TO_BREAK));
+		for (int i = 1; i < positions.length; i++) {
+			store.add(positions[i], DAMAGE_TO_BREAK);
+		}
+		store.remove(store.indexOf(positions[5]));
+
+		store.clear();
+
+		assertEquals(0, store.size());
+		assertEquals(-1, store.indexOf(positions[0]));
+		assertEquals(firstBreakerId, store.getBreakerId(store.add(positions[0], DAMAGE_TO_BREAK)));
+	}
+
+	/**
+	 * Adds and removes random blocks and compares the store with a map after each
+	 * step. This covers removing blocks at any index and re-adding removed blocks.
+	 */
+	@Test
+	void randomAddAndRemoveStaysConsistent() {
+		BlockBreakProgressStore store = new BlockBreakProgressStore();
+		Map<Long, Integer> expectedProgress = new HashMap<>();
+		// few blocks, so that most of them are removed and added again
+		long[] positions = createPositions(1_000);
+		Random random = new Random(0);
+
+		for (int step = 0; step < 100_000; step++) {
+			long pos = positions[random.nextInt(positions.length)];
+			int index = store.indexOf(pos);
+			if (index < 0) {
+				index = store.add(pos, DAMAGE_TO_BREAK);
+				int progress = random.nextInt(100);
+				store.setProgress(index, progress);
+				expectedProgress.put(pos, progress);
+			} else {
+				assertEquals(expectedProgress.get(pos), store.getProgress(index));
+				store.remove(index);
+				expectedProgress.remove(pos);
+			}
+		}
+
+		assertEquals(expectedProgress.size(), store.size());
+		for (Map.Entry<Long, Integer> entry : expectedProgress.entrySet()) {
+			assertEquals(entry.getValue(), store.getProgress(store.indexOf(entry.getKey())));
+		}
+		assertConsistent(store);
+	}
+
+	/**
+	 * Checks that every index maps back to itself and that the breaker ids are
+	 * unique.
+	 */
+	private static void assertConsistent(BlockBreakProgressStore store) {
+		Set<Integer> breakerIds = new HashSet<>();
+		for (int i = 0; i < store.size(); i++) {
+			assertEquals(i, store.indexOf(store.getPos(i)));
+			assertTrue(breakerIds.add(store.getBreakerId(i)), "Breaker id " + store.getBreakerId(i) + " is used twice");
+		}
+	}
+
+	/**
+	 * @return the packed positions of a wall of blocks
+	 */
+	static long[] createPositions(int count) {
+		long[] positions = new long[count];
+		for (int i = 0; i < count; i++) {
+			positions[i] = BlockPos.asLong(i % 128, 64 + i / 128 % 64, i / (128 * 64));
+		}
+		return positions;
+	}
+}
@@ -0,0 +1,131 @@
+package may.baseraids.entities.ai.goal;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+import may.baseraids.Baseraids;
+import may.baseraids.RaidManager;
+import may.baseraids.nexus.NexusBlock;
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.monster.Skeleton;
+import net.minecraft.world.entity.monster.Zombie;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+
+/**
+ * This class benchmarks the memory allocated by the block attacking goals of the
+ * raid mobs. A single block of obsidian floats between a mob and the nexus. The
+ * goal is ticked once per server tick and has to find the block on its own by
+ * looking towards the nexus, so that the target search, the shared ray casts
+ * and the level of detail run like during a raid. Only the bytes allocated by
+ * {@link AttackBlockGoal#tick()} are measured. The goals are expected to
+ * allocate next to nothing per tick.
+ * <p>
+ * The tests are run by the {@code runGameTestServer} task and log the measured
+ * bytes per tick. No player may be online, otherwise the ranged goal spawns
+ * arrow entities instead of resolving its shots as hitscan. Each test moves the
+ * nexus, so the tests run in separate batches.
+ *
+ * @author Natascha May
+ */
+@GameTestHolder(Baseraids.MODID)
+@PrefixGameTestTemplate(false)
+public class AttackBlockGoalAllocationTest {
+
+	private static final String TEMPLATE = "allocation_arena";
+	private static final int WARMUP_TICKS = 2000;
+	private static final int MEASURED_TICKS = 2000;
+	private static final int TIMEOUT_TICKS = WARMUP_TICKS + MEASURED_TICKS + 20;
+	/** The progress of the wall is reset this often, so that it never breaks */
+	private static final int RESET_INTERVAL = 100;
+	private static final long MAX_BYTES_PER_TICK = 8;
+
+	@GameTest(template = TEMPLATE, batch = "melee_allocation", timeoutTicks = TIMEOUT_TICKS)
+	public static void meleeGoalTickDoesNotAllocate(GameTestHelper helper) {
+		Zombie zombie = helper.spawnWithNoFreeWill(EntityType.ZOMBIE, 1, 1, 1);
+		RaidManager raidManager = Baseraids.worldManager.getRaidManager();
+		// in melee range of the zombie
+		measureBytesPerTick(helper, new AttackBlockMeleeGoal<>(zombie, raidManager), new BlockPos(3, 2, 1),
+				"Melee");
+	}
+
+	@GameTest(template = TEMPLATE, batch = "ranged_allocation", timeoutTicks = TIMEOUT_TICKS)
+	public static void rangedGoalTickDoesNotAllocate(GameTestHelper helper) {
+		Skeleton skeleton = helper.spawnWithNoFreeWill(EntityType.SKELETON, 1, 1, 1);
+		RaidManager raidManager = Baseraids.worldManager.getRaidManager();
+		// out of melee range, so that the skeleton shoots
+		measureBytesPerTick(helper, new AttackBlockRangedGoal<>(skeleton, raidManager), new BlockPos(7, 2, 1),
+				"Ranged");
+	}
+
+	/**
+	 * Places the wall, moves the nexus right behind it and ticks the goal once
+	 * per server tick. The first {@link #WARMUP_TICKS} let the code be compiled
+	 * and all reused buffers grow, then the bytes allocated by the goal are
+	 * measured over {@link #MEASURED_TICKS}. The test fails, if the goal never
+	 * found the wall or allocated more than {@link #MAX_BYTES_PER_TICK} on
+	 * average.
+	 *
+	 * @param helper   the helper of the running test
+	 * @param goal     the goal of a mob standing at (1, 1, 1)
+	 * @param wall     the position of the wall relative to the test structure
+	 * @param goalName the name of the goal used in the log and the failure message
+	 */
+	private static void measureBytesPerTick(GameTestHelper helper, AttackBlockGoal<?> goal, BlockPos wall,
+			String goalName) {
+		RaidManager raidManager = Baseraids.worldManager.getRaidManager();
+		BlockPos absoluteWall = helper.absolutePos(wall);
+		helper.setBlock(wall, Blocks.OBSIDIAN);
+		CompoundTag savedNexus = NexusBlock.write();
+		moveNexus(savedNexus, helper.absolutePos(wall.east()));
+
+		ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		// the runnables can only change the contents of effectively final variables
+		int[] ticks = { 0 };
+		long[] allocated = { 0 };
+		boolean[] hasFoundWall = { false };
+		helper.onEachTick(() -> {
+			if (ticks[0] % RESET_INTERVAL == 0) {
+				raidManager.globalBlockBreakProgressMng.resetProgress(absoluteWall);
+			}
+			long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+			goal.tick();
+			long bytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+			if (ticks[0] >= WARMUP_TICKS) {
+				allocated[0] += bytes;
+			}
+			hasFoundWall[0] |= absoluteWall.equals(goal.target);
+			ticks[0]++;
+		});
+
+		helper.runAfterDelay(WARMUP_TICKS + MEASURED_TICKS, () -> {
+			NexusBlock.read(savedNexus);
+			raidManager.globalBlockBreakProgressMng.resetProgress(absoluteWall);
+			long bytesPerTick = allocated[0] / MEASURED_TICKS;
+			Baseraids.LOGGER.info("{} goal allocated {} bytes per tick over {} server ticks", goalName, bytesPerTick,
+					MEASURED_TICKS);
+			helper.assertTrue(hasFoundWall[0], goalName + " goal never found the wall");
+			helper.assertTrue(bytesPerTick <= MAX_BYTES_PER_TICK,
+					goalName + " goal allocated " + bytesPerTick + " bytes per tick");
+			helper.succeed();
+		});
+	}
+
+	/**
+	 * Moves the nexus to the given position without placing the block, using the
+	 * data written by {@link NexusBlock#write()}.
+	 */
+	private static void moveNexus(CompoundTag savedNexus, BlockPos pos) {
+		CompoundTag nexus = savedNexus.copy();
+		nexus.putInt("curBlockPosX", pos.getX());
+		nexus.putInt("curBlockPosY", pos.getY());
+		nexus.putInt("curBlockPosZ", pos.getZ());
+		NexusBlock.read(nexus);
+	}
+}